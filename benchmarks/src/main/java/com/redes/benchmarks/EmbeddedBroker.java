@@ -0,0 +1,44 @@
+package com.redes.benchmarks;
+
+import io.moquette.BrokerConstants;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Properties;
+
+// Bróker Moquette en memoria, sin TLS ni autenticación, en un puerto libre
+public class EmbeddedBroker implements AutoCloseable {
+    private final Server server = new Server();
+    private final int port;
+
+    public EmbeddedBroker() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(BrokerConstants.HOST_PROPERTY_NAME, "127.0.0.1");
+        properties.setProperty(BrokerConstants.PORT_PROPERTY_NAME, String.valueOf(port));
+        properties.setProperty(BrokerConstants.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+        properties.setProperty(BrokerConstants.ALLOW_ZERO_BYTE_CLIENT_ID_PROPERTY_NAME, "true");
+        properties.setProperty(BrokerConstants.PERSISTENCE_ENABLED_PROPERTY_NAME, "false");
+        properties.setProperty(BrokerConstants.ENABLE_TELEMETRY_NAME, "false");
+        properties.setProperty(BrokerConstants.WEB_SOCKET_PORT_PROPERTY_NAME, BrokerConstants.DISABLED_PORT_BIND);
+        server.startServer(new MemoryConfig(properties));
+    }
+
+    public String getHost() {
+        return "127.0.0.1";
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        server.stopServer();
+    }
+}
@@ -0,0 +1,43 @@
+package com.redes.benchmarks;
+
+import com.redes.codec.BinaryCodec;
+import com.redes.codec.FixedPoint;
+import com.redes.codec.JsonCodec;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// Construcción del mensaje de precio: String.format original frente a los codecs
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    private final ByteBuffer buffer = ByteBuffer.allocate(128);
+    private double price = 43000.12345678;
+    private long timestamp = 1700000000000L;
+
+    @Benchmark
+    public byte[] stringFormat() {
+        return String.format("{\"symbol\":\"%s\",\"price\":%.8f,\"timestamp\":%d}",
+                "BTCUSDT", price, timestamp).getBytes();
+    }
+
+    @Benchmark
+    public ByteBuffer jsonCodec() {
+        buffer.clear();
+        JsonCodec.INSTANCE.encode("BTCUSDT", FixedPoint.fromDouble(price), timestamp, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer binaryCodec() {
+        buffer.clear();
+        BinaryCodec.INSTANCE.encode("BTCUSDT", FixedPoint.fromDouble(price), timestamp, buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,31 @@
+package com.redes.benchmarks;
+
+import com.redes.util.LogFormatter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogRecord;
+
+// Coste de formatear una línea de log como las del tick ("Publicado: ...")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogFormatterBenchmark {
+    private final LogFormatter formatter = new LogFormatter();
+    private LogRecord record;
+
+    @Setup
+    public void setUp() {
+        record = new LogRecord(java.util.logging.Level.INFO, "Publicado: {0} => {1} ({2} bytes)");
+        record.setParameters(new Object[] { "BTCUSDT", 43000.12345678, 70 });
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(record);
+    }
+}
@@ -0,0 +1,65 @@
+package com.redes.benchmarks;
+
+import com.redes.dto.PriceResponse;
+import com.redes.source.PriceBook;
+import com.redes.source.SymbolTable;
+import com.redes.source.TickerParser;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Conversión de una respuesta de /api/v3/ticker/price con `symbols` precios:
+// ruta anterior (String -> Gson -> PriceResponse[] -> Double.parseDouble) frente al
+// lector de bytes en punto fijo sobre un PriceBook.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx512m")
+public class ParseBenchmark {
+    @Param({ "3", "300" })
+    public int symbols;
+
+    private final Gson gson = new Gson();
+    private byte[] body;
+    private SymbolTable table;
+    private PriceBook book;
+
+    @Setup
+    public void setUp() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < symbols; i++) {
+            names.add("SYM" + i + "USDT");
+        }
+        body = TickerResponses.ticker(names).getBytes(StandardCharsets.UTF_8);
+        table = new SymbolTable(names);
+        book = new PriceBook(table.size());
+    }
+
+    @Benchmark
+    public Map<String, Double> gson() {
+        String text = new String(body, StandardCharsets.UTF_8);
+        PriceResponse[] responses = gson.fromJson(text, PriceResponse[].class);
+        Map<String, Double> prices = new HashMap<>();
+        for (PriceResponse response : responses) {
+            prices.put(response.getSymbol(), Double.parseDouble(response.getPrice()));
+        }
+        return prices;
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) {
+        book.clear();
+        blackhole.consume(TickerParser.parse(body, body.length, table, book, 1L));
+        blackhole.consume(book);
+    }
+}
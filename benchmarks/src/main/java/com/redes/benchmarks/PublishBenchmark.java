@@ -0,0 +1,76 @@
+package com.redes.benchmarks;
+
+import com.redes.PricePublisher;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3BlockingClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Rendimiento de publicación QoS 1: cliente bloqueante (un PUBACK por mensaje)
+// frente a PricePublisher con una ventana de mensajes en vuelo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublishBenchmark {
+    private static final int BATCH = 1000;
+    private static final String TOPIC = "bench/crypto";
+
+    @Param({ "16", "64", "256" })
+    public int window;
+
+    private EmbeddedBroker broker;
+    private Mqtt3BlockingClient mqttClient;
+    private PricePublisher publisher;
+    private double price = 42000.0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // El log por mensaje falsearía la medida
+        Logger.getLogger(PricePublisher.class.getName()).setLevel(java.util.logging.Level.WARNING);
+
+        broker = new EmbeddedBroker();
+        mqttClient = MqttClient.builder()
+                .useMqttVersion3()
+                .serverHost(broker.getHost())
+                .serverPort(broker.getPort())
+                .buildBlocking();
+        mqttClient.connect();
+        publisher = new PricePublisher(mqttClient.toAsync(), TOPIC, true, null, window);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mqttClient.disconnect();
+        broker.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void blocking() {
+        for (int i = 0; i < BATCH; i++) {
+            mqttClient.publishWith()
+                    .topic(TOPIC + "/BTCUSDT")
+                    .qos(MqttQos.AT_LEAST_ONCE)
+                    .retain(true)
+                    .payload(String.format("{\"symbol\":\"%s\",\"price\":%.8f,\"timestamp\":%d}",
+                            "BTCUSDT", price += 0.01, System.currentTimeMillis()).getBytes())
+                    .send();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void pipelined() throws InterruptedException {
+        for (int i = 0; i < BATCH; i++) {
+            publisher.publish("BTCUSDT", price += 0.01);
+        }
+        publisher.flush(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,53 @@
+package com.redes.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Servidor HTTP local que responde a /api/v3/ticker/price con precios fijos.
+public class StubBinance implements AutoCloseable {
+    static {
+        // Sin esto el servidor del JDK añade ~40 ms por respuesta (Nagle + ACK retrasado)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+
+    public StubBinance(List<String> symbols) throws IOException {
+        byte[] all = TickerResponses.ticker(symbols).getBytes(StandardCharsets.UTF_8);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/ticker/price", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            byte[] body = all;
+            if (query != null && query.startsWith("symbol=")) {
+                // Petición de un solo símbolo
+                body = TickerResponses.ticker(List.of(query.substring("symbol=".length())))
+                        .getBytes(StandardCharsets.UTF_8);
+            } else if (query != null && query.startsWith("symbols=") && !query.contains("%2C")) {
+                String symbol = java.net.URLDecoder.decode(query.substring("symbols=".length()), StandardCharsets.UTF_8)
+                        .replaceAll("[\\[\\]\"]", "");
+                body = TickerResponses.ticker(List.of(symbol)).getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
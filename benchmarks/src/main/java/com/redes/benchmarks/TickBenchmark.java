@@ -0,0 +1,83 @@
+package com.redes.benchmarks;
+
+import com.redes.PricePublisher;
+import com.redes.PriceTask;
+import com.redes.source.BinancePriceSource;
+import com.redes.source.CircuitBreaker;
+import com.redes.source.PriceCache;
+import com.redes.source.RateLimiter;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3BlockingClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Tick completo: petición a un Binance simulado, conversión, codificación y publicación
+// QoS 1 en un bróker embebido, hasta recibir todos los PUBACK.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark {
+    @Param({ "3", "100" })
+    public int symbols;
+
+    @Param({ "true", "false" })
+    public boolean batch;
+
+    private StubBinance binance;
+    private EmbeddedBroker broker;
+    private Mqtt3BlockingClient mqttClient;
+    private PricePublisher publisher;
+    private PriceTask task;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // El log por mensaje falsearía la medida
+        for (Class<?> clazz : new Class<?>[] { PricePublisher.class, PriceTask.class }) {
+            Logger.getLogger(clazz.getName()).setLevel(java.util.logging.Level.WARNING);
+        }
+
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < symbols; i++) {
+            names.add("SYM" + i + "USDT");
+        }
+
+        binance = new StubBinance(names.stream().toList());
+        broker = new EmbeddedBroker();
+        mqttClient = MqttClient.builder()
+                .useMqttVersion3()
+                .serverHost(broker.getHost())
+                .serverPort(broker.getPort())
+                .buildBlocking();
+        mqttClient.connect();
+
+        // Sin presupuesto de peso: el benchmark hace muchas más peticiones por minuto que Binance permite
+        BinancePriceSource source = new BinancePriceSource(binance.getBaseUrl(),
+                Duration.ofSeconds(5), Duration.ofSeconds(5),
+                new RateLimiter(Integer.MAX_VALUE), new CircuitBreaker(5, 1000, 300000));
+        publisher = new PricePublisher(mqttClient.toAsync(), "bench/crypto", true, null, 64);
+        // Sin antigüedad máxima: cada tick va a Binance, como en producción con interval > priceCacheMaxAge
+        task = new PriceTask(new PriceCache(source, 0, 0, names.size()), publisher, names, batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mqttClient.disconnect();
+        broker.close();
+        binance.close();
+    }
+
+    @Benchmark
+    public void tick() throws InterruptedException {
+        task.run();
+        publisher.flush(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,21 @@
+package com.redes.benchmarks;
+
+import java.util.List;
+
+// Respuestas de ejemplo con el formato de /api/v3/ticker/price
+public class TickerResponses {
+    private TickerResponses() {
+    }
+
+    public static String ticker(List<String> symbols) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < symbols.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"symbol\":\"").append(symbols.get(i))
+                    .append("\",\"price\":\"").append(1000 + i).append(".12345678\"}");
+        }
+        return body.append(']').toString();
+    }
+}
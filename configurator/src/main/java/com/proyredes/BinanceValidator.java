@@ -1,31 +1,59 @@
 package com.proyredes;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.proyredes.util.Loggers;
 
-import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Comprueba que los símbolos existan en Binance.
+// La lista de símbolos se guarda en disco (SymbolSnapshot) y las validaciones parten de
+// esa copia; cuando tiene más de MAX_AGE se refresca en segundo plano, con If-None-Match
+// para que Binance no la vuelva a enviar si no ha cambiado. El índice es inmutable y se
+// sustituye de forma atómica, así que se puede validar desde cualquier hilo.
 public class BinanceValidator {
-    private static Set<String> validSymbolsCache = null;
+    private static final String EXCHANGE_INFO_URL = "https://api.binance.com/api/v3/exchangeInfo";
+    private static final Path SNAPSHOT_PATH = Paths.get(System.getProperty("user.home"), ".criptomonitor",
+            "exchange-symbols.bin");
+    private static final long MAX_AGE = TimeUnit.HOURS.toMillis(24);
+    private static final long RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Logger logger = Loggers.getLogger(BinanceValidator.class);
+
+    // Índice vigente; se sustituye entero cuando termina una carga, nunca se modifica
+    private static final AtomicReference<SymbolSnapshot> snapshot = new AtomicReference<>();
+    // Carga en curso; quien llegue mientras tanto espera a la misma en vez de lanzar otra
+    private static final AtomicReference<CompletableFuture<SymbolSnapshot>> pendingLoad = new AtomicReference<>();
+    private static final AtomicLong lastRefreshAttempt = new AtomicLong();
 
+    // Se puede llamar desde varios hilos a la vez; las búsquedas no bloquean
     public static List<String> getInvalidSymbols(String ...symbols) {
         List<String> invalidSymbols = new ArrayList<>();
         try {
-            if (validSymbolsCache == null) {
-                validSymbolsCache = loadValidSymbols();
-            }
+            SymbolSnapshot validSymbols = currentSnapshot();
 
             for (String symbol : symbols) {
-                if (!validSymbolsCache.contains(symbol.toUpperCase())) {
+                if (!validSymbols.contains(symbol)) {
                     invalidSymbols.add(symbol);
                 }
             }
@@ -35,23 +63,155 @@ public class BinanceValidator {
         return invalidSymbols;
     }
 
+    // Volver a descargar la lista ahora mismo (si no ha cambiado, Binance responde 304)
     public static void refreshSymbols() throws Exception {
-        validSymbolsCache = loadValidSymbols();
+        await(sharedLoad(() -> download(snapshot.get())));
+    }
+
+    private static SymbolSnapshot currentSnapshot() throws Exception {
+        SymbolSnapshot current = snapshot.get();
+        if (current == null) {
+            return await(sharedLoad(() -> {
+                SymbolSnapshot loaded = loadFromDisk();
+                return loaded != null ? loaded : download(null);
+            }));
+        }
+
+        // Como mucho un intento de refresco por minuto, aunque falle (p. ej. sin conexión)
+        long now = System.currentTimeMillis();
+        long lastAttempt = lastRefreshAttempt.get();
+        if (now - current.getFetchedAt() > MAX_AGE && now - lastAttempt > RETRY_DELAY
+                && pendingLoad.get() == null && lastRefreshAttempt.compareAndSet(lastAttempt, now)) {
+            refreshInBackground();
+        }
+        return current;
+    }
+
+    // Ejecutar la carga si no hay otra en curso, o devolver la que ya está en marcha
+    private static CompletableFuture<SymbolSnapshot> sharedLoad(Callable<SymbolSnapshot> loader) {
+        CompletableFuture<SymbolSnapshot> mine = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<SymbolSnapshot> existing = pendingLoad.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (pendingLoad.compareAndSet(null, mine)) {
+                break;
+            }
+        }
+
+        try {
+            SymbolSnapshot loaded = loader.call();
+            snapshot.set(loaded);
+            mine.complete(loaded);
+        } catch (Exception ex) {
+            mine.completeExceptionally(ex);
+        } finally {
+            pendingLoad.set(null);
+        }
+        return mine;
+    }
+
+    private static SymbolSnapshot await(CompletableFuture<SymbolSnapshot> load) throws Exception {
+        try {
+            return load.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
     }
 
-    private static Set<String> loadValidSymbols() throws Exception {
-        URL url = new URI("https://api.binance.com/api/v3/exchangeInfo").toURL();
+    private static SymbolSnapshot loadFromDisk() {
+        if (!Files.exists(SNAPSHOT_PATH)) {
+            return null;
+        }
+        try {
+            SymbolSnapshot loaded = SymbolSnapshot.open(SNAPSHOT_PATH);
+            logger.info(String.format("Cargados %d símbolos de %s.", loaded.size(), SNAPSHOT_PATH));
+            return loaded;
+        } catch (IOException ex) {
+            logger.warning(String.format("No se pudo leer %s: %s.", SNAPSHOT_PATH, ex.getMessage()));
+            return null;
+        }
+    }
+
+    private static void refreshInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                refreshSymbols();
+            } catch (Exception ex) {
+                logger.warning(String.format("No se pudo refrescar la lista de símbolos: %s.", ex.getMessage()));
+            }
+        }, "refresco-simbolos");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Descargar exchangeInfo; con una copia previa se pide sólo si ha cambiado
+    private static SymbolSnapshot download(SymbolSnapshot previous) throws Exception {
+        URL url = new URI(EXCHANGE_INFO_URL).toURL();
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod("GET");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (previous != null && previous.getEtag() != null) {
+            connection.setRequestProperty("If-None-Match", previous.getEtag());
+        }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-            JsonArray jsonSymbols = JsonParser.parseReader(reader).getAsJsonObject().getAsJsonArray("symbols");
+        try {
+            long now = System.currentTimeMillis();
+            SymbolSnapshot downloaded;
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED && previous != null) {
+                downloaded = previous.withFetchedAt(now);
+                logger.info("La lista de símbolos de Binance no ha cambiado.");
+            } else {
+                InputStream input = connection.getInputStream();
+                if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                    input = new GZIPInputStream(input);
+                }
+                try (JsonReader reader = new JsonReader(new InputStreamReader(input, UTF_8))) {
+                    downloaded = SymbolSnapshot.build(readSymbols(reader), connection.getHeaderField("ETag"), now);
+                }
+                logger.info(String.format("Descargados %d símbolos de Binance.", downloaded.size()));
+            }
+
+            try {
+                downloaded.write(SNAPSHOT_PATH);
+            } catch (IOException ex) {
+                // Sin copia en disco se sigue validando con la de memoria
+                logger.warning(String.format("No se pudo guardar %s: %s.", SNAPSHOT_PATH, ex.getMessage()));
+            }
+            return downloaded;
+        } finally {
+            connection.disconnect();
+        }
+    }
 
-            Set<String> validSymbols = new HashSet<>();
-            for (JsonElement element : jsonSymbols) {
-                validSymbols.add(element.getAsJsonObject().get("symbol").getAsString().toUpperCase());
+    // Recorrer el documento sin construirlo en memoria: sólo interesa "symbols"[*]."symbol"
+    private static List<String> readSymbols(JsonReader reader) throws IOException {
+        List<String> symbols = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!reader.nextName().equals("symbols")) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("symbol") && reader.peek() == JsonToken.STRING) {
+                        symbols.add(reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
             }
-            return validSymbols;
+            reader.endArray();
         }
+        reader.endObject();
+        return symbols;
     }
 }
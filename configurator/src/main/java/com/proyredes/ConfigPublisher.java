@@ -0,0 +1,191 @@
+package com.proyredes;
+
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PayloadFormatIndicator;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.proyredes.util.Loggers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Conexión MQTT 5 del configurador, abierta una sola vez y reutilizada en cada envío.
+// La configuración de cada monitor va en un único mensaje retenido y versionado en su
+// tópico; la versión viaja también como user property y el formato en el content type.
+// Al conectar se suscribe a <topicFilter> (un monitor, o "+/config" para toda la flota)
+// y recuerda la última configuración retenida de cada tópico.
+public class ConfigPublisher {
+    private static final Logger logger = Loggers.getLogger(ConfigPublisher.class);
+
+    private final Mqtt5AsyncClient mqttClient;
+    private final String topicFilter;
+    private final String username;
+    private final String password;
+    private final AtomicReference<CompletableFuture<Void>> connection = new AtomicReference<>();
+    private final ConcurrentMap<String, MonitorConfiguration> lastPublished = new ConcurrentHashMap<>();
+    private final AtomicLong lastRetainedAt = new AtomicLong();
+
+    public ConfigPublisher(String host, int port, String username, String password, String topicFilter) {
+        this.topicFilter = topicFilter;
+        this.username = username;
+        this.password = password;
+        this.mqttClient = MqttClient.builder()
+            .useMqttVersion5()
+            .serverHost(host)
+            .serverPort(port)
+            .sslWithDefaultConfig()
+            .buildAsync();
+    }
+
+    // Conectar si no se ha hecho ya; si el intento anterior falló o la conexión se cayó
+    // se vuelve a conectar
+    public CompletableFuture<Void> connect() {
+        while (true) {
+            CompletableFuture<Void> current = connection.get();
+            if (current != null && !current.isDone()) {
+                return current;
+            }
+            if (current != null && !current.isCompletedExceptionally() && mqttClient.getState().isConnected()) {
+                return current;
+            }
+            CompletableFuture<Void> attempt = new CompletableFuture<>();
+            if (!connection.compareAndSet(current, attempt)) {
+                continue;
+            }
+            // Conexión nueva: hay que volver a esperar las retenidas (awaitRetained)
+            lastRetainedAt.set(0);
+
+            mqttClient.connectWith()
+                .simpleAuth()
+                .username(username)
+                .password(UTF_8.encode(password))
+                .applySimpleAuth()
+                .send()
+                .thenCompose(connAck -> mqttClient.subscribeWith()
+                    .topicFilter(topicFilter)
+                    .qos(MqttQos.AT_LEAST_ONCE)
+                    .callback(this::onRetainedConfiguration)
+                    .send())
+                .whenComplete((subAck, error) -> {
+                    if (error != null) {
+                        logger.warning(String.format("No se pudo conectar al broker MQTT: %s.", error.getMessage()));
+                        attempt.completeExceptionally(error);
+                    } else {
+                        logger.info("Conectado al broker MQTT.");
+                        attempt.complete(null);
+                    }
+                });
+            return attempt;
+        }
+    }
+
+    // Publicar en el tópico de la suscripción (modo de un solo monitor)
+    public CompletableFuture<Boolean> publishConfiguration(MonitorConfiguration configuration) {
+        return publishConfiguration(topicFilter, configuration);
+    }
+
+    // Publicar la configuración completa en un único mensaje retenido. La versión es
+    // max(anterior + 1, hora actual en ms), así que siempre crece aunque el reloj retroceda.
+    // Si es igual a la última publicada no se envía y el resultado es false.
+    public CompletableFuture<Boolean> publishConfiguration(String topic, MonitorConfiguration configuration) {
+        return connect().thenCompose(connected -> {
+            MonitorConfiguration last = lastPublished.get(topic);
+            if (configuration.sameSettings(last)) {
+                logger.fine(String.format("La configuración de %s no ha cambiado; no se envía.", topic));
+                return CompletableFuture.completedFuture(false);
+            }
+
+            long previousVersion = last != null ? last.getVersion() : 0;
+            configuration.setVersion(Math.max(previousVersion + 1, System.currentTimeMillis()));
+            String payload = configuration.encode();
+
+            return mqttClient.publishWith()
+                .topic(topic)
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .retain(true)
+                .contentType(MonitorConfiguration.CONTENT_TYPE)
+                .payloadFormatIndicator(Mqtt5PayloadFormatIndicator.UTF_8)
+                .userProperties()
+                    .add("version", String.valueOf(configuration.getVersion()))
+                    .applyUserProperties()
+                .payload(payload.getBytes(UTF_8))
+                .send()
+                .thenApply(result -> {
+                    result.getError().ifPresent(error -> {
+                        throw new IllegalStateException(error.getMessage(), error);
+                    });
+                    remember(topic, configuration);
+                    logger.fine(String.format("Publicado: %s -> %s.", topic, payload));
+                    return true;
+                });
+        });
+    }
+
+    // Última configuración retenida en el broker para el tópico (la de este configurador u otro)
+    public MonitorConfiguration getLastPublished(String topic) {
+        return lastPublished.get(topic);
+    }
+
+    public MonitorConfiguration getLastPublished() {
+        return getLastPublished(topicFilter);
+    }
+
+    // El broker entrega los mensajes retenidos justo después del SUBACK, sin avisar de
+    // cuándo termina; se da por acabado cuando pasan quietMillis sin recibir ninguno
+    // (o maxMillis en total). Hay que esperarlo antes del primer envío tras conectar: sin
+    // la configuración retenida no se sabe si ya está publicada ni qué versión sigue.
+    public CompletableFuture<Void> awaitRetained(long quietMillis, long maxMillis) {
+        return connect().thenRunAsync(() -> {
+            long deadline = System.currentTimeMillis() + maxMillis;
+            lastRetainedAt.compareAndSet(0, System.currentTimeMillis());
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    long quietUntil = lastRetainedAt.get() + quietMillis;
+                    if (now >= quietUntil || now >= deadline) {
+                        return;
+                    }
+                    Thread.sleep(Math.min(quietUntil, deadline) - now);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    // El broker entrega la configuración retenida al suscribirse; se recuerda para
+    // calcular la siguiente versión y no reenviar lo que ya está publicado
+    private void onRetainedConfiguration(Mqtt5Publish publish) {
+        lastRetainedAt.set(System.currentTimeMillis());
+        String topic = publish.getTopic().toString();
+        String text = new String(publish.getPayloadAsBytes(), UTF_8);
+        if (text.isEmpty()) {
+            // Mensaje vacío: se ha borrado la configuración retenida
+            lastPublished.remove(topic);
+            return;
+        }
+        try {
+            remember(topic, MonitorConfiguration.decode(text));
+        } catch (IllegalArgumentException ex) {
+            logger.warning(String.format("Configuración retenida no reconocida en %s: %s.", topic, text));
+        }
+    }
+
+    private void remember(String topic, MonitorConfiguration configuration) {
+        lastPublished.merge(topic, configuration,
+            (current, candidate) -> candidate.getVersion() > current.getVersion() ? candidate : current);
+    }
+
+    public void close() {
+        if (mqttClient.getState().isConnected()) {
+            mqttClient.disconnect();
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package com.proyredes;
 
-import com.hivemq.client.mqtt.MqttClient;
-import com.hivemq.client.mqtt.mqtt5.Mqtt5BlockingClient;
-import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
 import com.proyredes.util.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.logging.ConsoleHandler;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.swing.JOptionPane.*;
 
 public class ConfiguratorGUI extends JFrame {
@@ -24,21 +26,21 @@ public class ConfiguratorGUI extends JFrame {
     private static final String TOPIC = config.getString("topic");
     private static final String USERNAME = config.getString("username");
 
-    private JTextField symbolTxt1, symbolTxt2, symbolTxt3, thresholdTxt1, thresholdTxt2, thresholdTxt3, alarmDurationTxt;
+    private static final int SEND_TIMEOUT = 30;
+    // Espera a la configuración retenida del monitor antes del primer envío: llega justo
+    // tras el SUBACK, y si no hay ninguna se da por acabado pasado este tiempo
+    private static final long RETAINED_QUIET = 500;
+    private static final long RETAINED_MAX_WAIT = 2_000;
 
-    private static final Logger logger = Logger.getLogger(ConfiguratorGUI.class.getName());
-    static {
-        ConsoleHandler handler = new ConsoleHandler();
-        handler.setFormatter(new LogFormatter());
-        handler.setLevel(Level.ALL);
-        logger.addHandler(handler);
-        logger.setUseParentHandlers(false);
-        logger.setLevel(Level.ALL);
-    }
+    private JTextField symbolTxt1, symbolTxt2, symbolTxt3, thresholdTxt1, thresholdTxt2, thresholdTxt3, alarmDurationTxt;
+    private JButton sendBtn;
+    private JProgressBar progressBar;
+    private JLabel statusLbl;
+    private ConfigPublisher publisher;
 
     public ConfiguratorGUI() {
         setTitle("Configurador del monitor de criptomonedas");
-        setSize(400, 350);
+        setSize(400, 420);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setLayout(new GridBagLayout());
 
@@ -84,13 +86,36 @@ public class ConfiguratorGUI extends JFrame {
         add(createLabeledComponent("Duración de alarma:", alarmDurationTxt), gbc);
 
         // Botón de enviar
-        JButton sendBtn = new JButton("Aceptar");
+        sendBtn = new JButton("Aceptar");
         sendBtn.setBackground(new Color(0, 120, 255));
         sendBtn.setForeground(Color.WHITE);
         gbc.gridx = 2;
         add(sendBtn, gbc);
         sendBtn.addActionListener(e -> sendConfiguration());
 
+        // Estado del envío
+        progressBar = new JProgressBar(0, 100);
+        statusLbl = new JLabel(" ");
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 3;
+        add(progressBar, gbc);
+        gbc.gridy = 5;
+        add(statusLbl, gbc);
+
+        // Conexión MQTT persistente: se abre ya para que el primer envío no espere al handshake
+        publisher = new ConfigPublisher(HOST, PORT, USERNAME, PASSWORD, TOPIC);
+        publisher.connect();
+
+        // Cargar la lista de símbolos de Binance mientras se rellena el formulario
+        Thread preload = new Thread(BinanceValidator::getInvalidSymbols, "carga-simbolos");
+        preload.setDaemon(true);
+        preload.start();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                publisher.close();
+            }
+        });
+
         setVisible(true);
     }
 
@@ -103,9 +128,10 @@ public class ConfiguratorGUI extends JFrame {
     }
 
     private void sendConfiguration() {
-        String symbol1 = symbolTxt1.getText();
-        String symbol2 = symbolTxt2.getText();
-        String symbol3 = symbolTxt3.getText();
+        // Binance y los tópicos del sensor usan los símbolos en mayúsculas
+        String symbol1 = symbolTxt1.getText().trim().toUpperCase(Locale.ROOT);
+        String symbol2 = symbolTxt2.getText().trim().toUpperCase(Locale.ROOT);
+        String symbol3 = symbolTxt3.getText().trim().toUpperCase(Locale.ROOT);
 
         // Validar que las monedas no estén vacías
         if (symbol1.isEmpty() || symbol2.isEmpty() || symbol3.isEmpty()) {
@@ -129,100 +155,130 @@ public class ConfiguratorGUI extends JFrame {
             return;
         }
 
-        // Validar que las monedas existan
-        List<String> invalidSymbols = BinanceValidator.getInvalidSymbols(symbol1, symbol2, symbol3);
-        if (!invalidSymbols.isEmpty()) {
-            if (invalidSymbols.get(0).startsWith("ERROR:")) {
-                JOptionPane.showMessageDialog(
-                    this,
-                    String.format("Error al validar símbolos: %s.", invalidSymbols.get(0).substring(6)),
-                    "Error",
-                    ERROR_MESSAGE
-                );
-            } else {
-                JOptionPane.showMessageDialog(
-                    this,
-                    String.format("Los siguientes símbolos no son válidos: %s.", String.join(", ", invalidSymbols)),
-                    "Datos incorrectos",
-                    WARNING_MESSAGE
-                );
-            }
-            return;
-        }
-
+        double threshold1, threshold2, threshold3;
+        int alarmDuration;
         try {
-            double threshold1 = Double.parseDouble(thresholdTxt1.getText());
-            double threshold2 = Double.parseDouble(thresholdTxt2.getText());
-            double threshold3 = Double.parseDouble(thresholdTxt3.getText());
-            int alarmDuration = Integer.parseInt(alarmDurationTxt.getText());
-
-            if (threshold1 <= 0 || threshold2 <= 0 || threshold3 <= 0 || alarmDuration <= 0) {
-                JOptionPane.showMessageDialog(
-                    this,
-                    "Los valores límite y la duración de la alarma deben ser mayores que cero.",
-                    "Datos incorrectos",
-                    WARNING_MESSAGE
-                );
-                return;
-            }
-
-            // Crear el cliente MQTT
-            Mqtt5BlockingClient mqttClient = MqttClient.builder()
-                .useMqttVersion5()
-                .serverHost(HOST)
-                .serverPort(PORT)
-                .sslWithDefaultConfig()
-                .buildBlocking();
-
-            // Conectarse a HiveMQ Cloud
-            mqttClient.connectWith()
-                .simpleAuth()
-                .username(USERNAME)
-                .password(UTF_8.encode(PASSWORD))
-                .applySimpleAuth()
-                .send();
-
-            publish(mqttClient, "button1/symbol", symbol1);
-            publish(mqttClient, "button1/threshold", String.valueOf(threshold1));
-            publish(mqttClient, "button2/symbol", symbol2);
-            publish(mqttClient, "button2/threshold", String.valueOf(threshold2));
-            publish(mqttClient, "button3/symbol", symbol3);
-            publish(mqttClient, "button3/threshold", String.valueOf(threshold3));
-            publish(mqttClient, "alarmDuration", String.valueOf(alarmDuration));
-
-            // Desconectarse
-            mqttClient.disconnect();
-
-            JOptionPane.showMessageDialog(
-                this,
-                "Configuración enviada con éxito.",
-                "Configuración correcta",
-                INFORMATION_MESSAGE
-            );
+            threshold1 = Double.parseDouble(thresholdTxt1.getText());
+            threshold2 = Double.parseDouble(thresholdTxt2.getText());
+            threshold3 = Double.parseDouble(thresholdTxt3.getText());
+            alarmDuration = Integer.parseInt(alarmDurationTxt.getText());
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(
                 this,"Ingresa valores numéricos válidos.",
                 "Datos incorrectos",
                 WARNING_MESSAGE
             );
-        } catch (Exception ex) {
+            return;
+        }
+
+        if (threshold1 <= 0 || threshold2 <= 0 || threshold3 <= 0 || alarmDuration <= 0) {
             JOptionPane.showMessageDialog(
                 this,
-                ex.getMessage(),
-                "Error",
-                ERROR_MESSAGE
+                "Los valores límite y la duración de la alarma deben ser mayores que cero.",
+                "Datos incorrectos",
+                WARNING_MESSAGE
             );
+            return;
         }
+
+        Map<String, MonitorConfiguration.ButtonConfiguration> buttons = new LinkedHashMap<>();
+        buttons.put("button1", new MonitorConfiguration.ButtonConfiguration(symbol1, threshold1));
+        buttons.put("button2", new MonitorConfiguration.ButtonConfiguration(symbol2, threshold2));
+        buttons.put("button3", new MonitorConfiguration.ButtonConfiguration(symbol3, threshold3));
+        MonitorConfiguration configuration = new MonitorConfiguration(buttons, alarmDuration);
+
+        // La validación contra Binance y el envío van fuera del hilo de Swing
+        sendBtn.setEnabled(false);
+        progressBar.setValue(0);
+        statusLbl.setText("Validando monedas...");
+        new SendWorker(new String[] { symbol1, symbol2, symbol3 }, configuration).execute();
     }
 
-    private Mqtt5PublishResult publish(Mqtt5BlockingClient mqttClient, String topic, String message) {
-        String full_topic = String.format("%s/%s", TOPIC, topic);
-        Mqtt5PublishResult result = mqttClient.publishWith()
-            .topic(full_topic)
-            .payload(message.getBytes(UTF_8))
-            .send();
-        logger.info(String.format("Publicado: %s -> %s.", full_topic, message));
-        return result;
+    // Valida las monedas y publica la configuración en un único mensaje retenido
+    private class SendWorker extends SwingWorker<List<String>, String> {
+        private final String[] symbols;
+        private final MonitorConfiguration configuration;
+        private boolean changed;
+
+        SendWorker(String[] symbols, MonitorConfiguration configuration) {
+            this.symbols = symbols;
+            this.configuration = configuration;
+        }
+
+        @Override
+        protected List<String> doInBackground() throws Exception {
+            // Validar que las monedas existan
+            List<String> invalidSymbols = BinanceValidator.getInvalidSymbols(symbols);
+            if (!invalidSymbols.isEmpty()) {
+                return invalidSymbols;
+            }
+
+            publish("Enviando configuración...");
+            setProgress(50);
+            // Sin la retenida no se sabría si ya está publicada ni qué versión sigue
+            changed = publisher.awaitRetained(RETAINED_QUIET, RETAINED_MAX_WAIT)
+                .thenCompose(ready -> publisher.publishConfiguration(configuration))
+                .get(SEND_TIMEOUT, TimeUnit.SECONDS);
+            return invalidSymbols;
+        }
+
+        @Override
+        protected void process(List<String> updates) {
+            statusLbl.setText(updates.get(updates.size() - 1));
+            progressBar.setValue(getProgress());
+        }
+
+        @Override
+        protected void done() {
+            sendBtn.setEnabled(true);
+            try {
+                List<String> invalidSymbols = get();
+                if (invalidSymbols.isEmpty()) {
+                    progressBar.setValue(100);
+                    statusLbl.setText(changed
+                        ? String.format("Versión %d confirmada por el broker.", configuration.getVersion())
+                        : "Sin cambios: el monitor ya tiene esta configuración.");
+                    JOptionPane.showMessageDialog(
+                        ConfiguratorGUI.this,
+                        changed ? "Configuración enviada con éxito." : "La configuración no ha cambiado; no se ha reenviado.",
+                        "Configuración correcta",
+                        INFORMATION_MESSAGE
+                    );
+                } else if (invalidSymbols.get(0).startsWith("ERROR:")) {
+                    statusLbl.setText(" ");
+                    JOptionPane.showMessageDialog(
+                        ConfiguratorGUI.this,
+                        String.format("Error al validar símbolos: %s.", invalidSymbols.get(0).substring(6)),
+                        "Error",
+                        ERROR_MESSAGE
+                    );
+                } else {
+                    statusLbl.setText(" ");
+                    JOptionPane.showMessageDialog(
+                        ConfiguratorGUI.this,
+                        String.format("Los siguientes símbolos no son válidos: %s.", String.join(", ", invalidSymbols)),
+                        "Datos incorrectos",
+                        WARNING_MESSAGE
+                    );
+                }
+            } catch (Exception ex) {
+                Throwable cause = ex;
+                while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                        && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof TimeoutException) {
+                    cause = new TimeoutException("El broker no confirmó la configuración a tiempo");
+                }
+                statusLbl.setText("Error al enviar la configuración.");
+                JOptionPane.showMessageDialog(
+                    ConfiguratorGUI.this,
+                    cause.getMessage(),
+                    "Error",
+                    ERROR_MESSAGE
+                );
+            }
+        }
     }
 
     public static void main(String[] args) {
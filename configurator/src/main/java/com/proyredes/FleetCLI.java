@@ -0,0 +1,143 @@
+package com.proyredes;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.proyredes.util.Config;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Configurador de flota sin interfaz gráfica. Lee un JSON con la configuración de cada
+// monitor y publica sólo la de los que han cambiado:
+//   {
+//     "monitor01": { "alarmDuration": 1000, "buttons": {
+//       "button1": { "currency": "BTCUSDT", "threshold": 65000 }, ... } },
+//     "monitor02": { ... }
+//   }
+// Uso: FleetCLI <archivo.json> [publicaciones simultáneas]
+public class FleetCLI {
+    private static Config config = new Config("config.properties");
+
+    private static final String HOST = config.getString("host");
+    private static final String PASSWORD = config.getString("password");
+    private static final int PORT = config.getInt("port");
+    private static final String USERNAME = config.getString("username");
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    // Botones físicos del monitor
+    private static final Set<String> BUTTONS = new LinkedHashSet<>(List.of("button1", "button2", "button3"));
+    private static final String USAGE = "Uso: FleetCLI <archivo.json> [publicaciones simultáneas]";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        if (args.length > 1) {
+            try {
+                maxInFlight = Integer.parseInt(args[1]);
+            } catch (NumberFormatException ex) {
+                maxInFlight = 0;
+            }
+            if (maxInFlight <= 0) {
+                System.err.format("Número de publicaciones simultáneas no válido: %s.%n", args[1]);
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+        }
+
+        Map<String, MonitorConfiguration> configurations;
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), UTF_8)) {
+            configurations = new Gson().fromJson(reader, new TypeToken<LinkedHashMap<String, MonitorConfiguration>>() {}.getType());
+        } catch (JsonParseException ex) {
+            System.err.format("Archivo de configuración no válido: %s.%n", ex.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        List<String> errors = validate(configurations);
+        if (!errors.isEmpty()) {
+            errors.forEach(System.err::println);
+            System.exit(1);
+        }
+
+        long failed;
+        FleetConfigurator fleet = new FleetConfigurator(HOST, PORT, USERNAME, PASSWORD, maxInFlight);
+        try {
+            Map<String, FleetConfigurator.Outcome> outcomes = fleet.apply(configurations,
+                (monitorId, outcome, error, done, total) -> System.out.format("[%d/%d] %s: %s%s%n",
+                    done, total, monitorId, outcome, error != null ? " (" + error.getMessage() + ")" : ""))
+                .get();
+
+            long published = outcomes.values().stream().filter(o -> o == FleetConfigurator.Outcome.PUBLISHED).count();
+            long unchanged = outcomes.values().stream().filter(o -> o == FleetConfigurator.Outcome.UNCHANGED).count();
+            failed = outcomes.values().stream().filter(o -> o == FleetConfigurator.Outcome.FAILED).count();
+            System.out.format("Publicadas: %d, sin cambios: %d, fallidas: %d.%n", published, unchanged, failed);
+        } finally {
+            fleet.close();
+        }
+        // Después de cerrar: System.exit no ejecuta el finally
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // Las mismas comprobaciones que la interfaz gráfica, para todos los monitores
+    private static List<String> validate(Map<String, MonitorConfiguration> configurations) {
+        List<String> errors = new ArrayList<>();
+        if (configurations == null || configurations.isEmpty()) {
+            errors.add("No hay monitores que configurar.");
+            return errors;
+        }
+
+        Set<String> allSymbols = new LinkedHashSet<>();
+        configurations.forEach((monitorId, configuration) -> {
+            if (monitorId.isEmpty() || monitorId.contains("/") || monitorId.contains("+") || monitorId.contains("#")) {
+                errors.add(String.format("%s: identificador de monitor no válido.", monitorId));
+            }
+            if (configuration == null || configuration.getButtons() == null
+                    || !configuration.getButtons().keySet().equals(BUTTONS)) {
+                errors.add(String.format("%s: debe configurar exactamente %s.", monitorId, String.join(", ", BUTTONS)));
+                return;
+            }
+            if (configuration.getAlarmDuration() <= 0) {
+                errors.add(String.format("%s: la duración de la alarma debe ser mayor que cero.", monitorId));
+            }
+
+            Set<String> symbols = new LinkedHashSet<>();
+            configuration.getButtons().forEach((button, buttonConfiguration) -> {
+                String symbol = buttonConfiguration.getCurrency();
+                if (symbol == null || symbol.isEmpty()) {
+                    errors.add(String.format("%s: %s no tiene moneda.", monitorId, button));
+                } else if (!symbols.add(symbol.toUpperCase(Locale.ROOT))) {
+                    errors.add(String.format("%s: la moneda %s está repetida.", monitorId, symbol));
+                }
+                if (buttonConfiguration.getThreshold() <= 0) {
+                    errors.add(String.format("%s: el valor límite de %s debe ser mayor que cero.", monitorId, button));
+                }
+            });
+            allSymbols.addAll(symbols);
+        });
+
+        // Una sola consulta para todas las monedas de la flota
+        if (errors.isEmpty()) {
+            List<String> invalidSymbols = BinanceValidator.getInvalidSymbols(allSymbols.toArray(new String[0]));
+            if (!invalidSymbols.isEmpty() && invalidSymbols.get(0).startsWith("ERROR:")) {
+                errors.add(String.format("Error al validar símbolos: %s.", invalidSymbols.get(0).substring(6)));
+            } else if (!invalidSymbols.isEmpty()) {
+                errors.add(String.format("Los siguientes símbolos no son válidos: %s.", String.join(", ", invalidSymbols)));
+            }
+        }
+        return errors;
+    }
+}
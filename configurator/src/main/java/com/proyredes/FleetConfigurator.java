@@ -0,0 +1,122 @@
+package com.proyredes;
+
+import com.proyredes.util.Loggers;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+// Configuración de muchos monitores a la vez por una única conexión MQTT.
+// Se suscribe a "+/config" para conocer la configuración retenida de cada monitor, la
+// compara con la deseada y publica sólo las que cambian, con como mucho maxInFlight
+// publicaciones pendientes de confirmar al mismo tiempo.
+public class FleetConfigurator {
+    public static final String TOPIC_FILTER = "+/config";
+    private static final String TOPIC_FORMAT = "%s/config";
+
+    private static final long RETAINED_QUIET = 500;
+    private static final long RETAINED_MAX_WAIT = 10_000;
+
+    private static final Logger logger = Loggers.getLogger(FleetConfigurator.class);
+
+    public enum Outcome { PUBLISHED, UNCHANGED, FAILED }
+
+    // Se llama una vez por monitor, según se confirma (o falla) su configuración
+    public interface Progress {
+        void onDevice(String monitorId, Outcome outcome, Throwable error, int done, int total);
+    }
+
+    private final ConfigPublisher publisher;
+    private final int maxInFlight;
+
+    public FleetConfigurator(String host, int port, String username, String password, int maxInFlight) {
+        this(new ConfigPublisher(host, port, username, password, TOPIC_FILTER), maxInFlight);
+    }
+
+    public FleetConfigurator(ConfigPublisher publisher, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight debe ser mayor que cero");
+        }
+        this.publisher = publisher;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public static String topicOf(String monitorId) {
+        return String.format(TOPIC_FORMAT, monitorId);
+    }
+
+    // Aplicar la configuración deseada (id de monitor -> configuración). El resultado
+    // tiene una entrada por monitor y se completa cuando todos han terminado.
+    public CompletableFuture<Map<String, Outcome>> apply(Map<String, MonitorConfiguration> configurations,
+                                                         Progress progress) {
+        return publisher.awaitRetained(RETAINED_QUIET, RETAINED_MAX_WAIT)
+            .thenCompose(ready -> new Run(configurations, progress).start());
+    }
+
+    public void close() {
+        publisher.close();
+    }
+
+    // Una pasada sobre la flota: una ventana de maxInFlight publicaciones, y cada
+    // confirmación lanza la siguiente, sin bloquear ningún hilo
+    private class Run {
+        private final Iterator<Map.Entry<String, MonitorConfiguration>> pending;
+        private final Progress progress;
+        private final int total;
+        private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+        private final AtomicInteger done = new AtomicInteger();
+        private final CompletableFuture<Map<String, Outcome>> result = new CompletableFuture<>();
+
+        Run(Map<String, MonitorConfiguration> configurations, Progress progress) {
+            this.pending = configurations.entrySet().iterator();
+            this.progress = progress;
+            this.total = configurations.size();
+        }
+
+        CompletableFuture<Map<String, Outcome>> start() {
+            if (total == 0) {
+                result.complete(outcomes);
+            }
+            for (int i = 0; i < maxInFlight; i++) {
+                next();
+            }
+            return result;
+        }
+
+        private void next() {
+            Map.Entry<String, MonitorConfiguration> entry;
+            synchronized (pending) {
+                if (!pending.hasNext()) {
+                    return;
+                }
+                entry = pending.next();
+            }
+
+            String monitorId = entry.getKey();
+            // Async: las que no cambian se completan al momento y encadenarlas en el mismo
+            // hilo acabaría desbordando la pila con miles de monitores
+            publisher.publishConfiguration(topicOf(monitorId), entry.getValue())
+                .whenCompleteAsync((published, error) -> {
+                    Outcome outcome = error != null ? Outcome.FAILED
+                        : published ? Outcome.PUBLISHED : Outcome.UNCHANGED;
+                    if (error != null) {
+                        logger.warning(String.format("No se pudo configurar %s: %s.", monitorId, error.getMessage()));
+                    }
+                    outcomes.put(monitorId, outcome);
+                    int finished = done.incrementAndGet();
+                    try {
+                        progress.onDevice(monitorId, outcome, error, finished, total);
+                    } finally {
+                        if (finished == total) {
+                            result.complete(outcomes);
+                        } else {
+                            next();
+                        }
+                    }
+                });
+        }
+    }
+}
@@ -1,16 +1,61 @@
 package com.proyredes;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
+// Configuración completa de un monitor. Se envía en un único mensaje retenido con el
+// formato compacto de encode(), para que el monitor la aplique entera o no la aplique:
+//   C1;<versión>;<duración de alarma>;<moneda 1>;<límite 1>;<moneda 2>;<límite 2>;...
+// Los botones van en el orden de sus nombres (button1, button2, button3) y las monedas en
+// mayúsculas, como los tópicos en los que publica el sensor.
 public class MonitorConfiguration {
+    public static final String FORMAT = "C1";
+    public static final String CONTENT_TYPE = "application/x-criptomonitor-config";
+
     private Map<String, ButtonConfiguration> buttons;
     private int alarmDuration;
+    private long version;
 
     public MonitorConfiguration(Map<String, ButtonConfiguration> buttons, int alarmDuration) {
         this.buttons = buttons;
         this.alarmDuration = alarmDuration;
     }
 
+    public String encode() {
+        StringBuilder text = new StringBuilder(FORMAT)
+            .append(';').append(version)
+            .append(';').append(alarmDuration);
+        for (ButtonConfiguration button : new TreeMap<>(buttons).values()) {
+            text.append(';').append(button.getCurrency().trim().toUpperCase(Locale.ROOT))
+                .append(';').append(BigDecimal.valueOf(button.getThreshold()).stripTrailingZeros().toPlainString());
+        }
+        return text.toString();
+    }
+
+    public static MonitorConfiguration decode(String text) {
+        String[] fields = text.split(";");
+        if (fields.length < 3 || fields.length % 2 == 0 || !fields[0].equals(FORMAT)) {
+            throw new IllegalArgumentException(String.format("Configuración no reconocida: %s", text));
+        }
+        Map<String, ButtonConfiguration> buttons = new LinkedHashMap<>();
+        for (int i = 3; i < fields.length; i += 2) {
+            buttons.put("button" + ((i - 1) / 2), new ButtonConfiguration(fields[i], Double.parseDouble(fields[i + 1])));
+        }
+        MonitorConfiguration configuration = new MonitorConfiguration(buttons, Integer.parseInt(fields[2]));
+        configuration.setVersion(Long.parseLong(fields[1]));
+        return configuration;
+    }
+
+    // Misma configuración, sin tener en cuenta la versión
+    public boolean sameSettings(MonitorConfiguration other) {
+        return other != null && alarmDuration == other.alarmDuration
+            && new TreeMap<>(buttons).equals(new TreeMap<>(other.buttons));
+    }
+
     public Map<String, ButtonConfiguration> getButtons() {
         return buttons;
     }
@@ -27,6 +72,14 @@ public class MonitorConfiguration {
         this.alarmDuration = alarmDuration;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public static class ButtonConfiguration {
         private String currency;
         private double threshold;
@@ -51,5 +104,19 @@ public class MonitorConfiguration {
         public void setThreshold(double threshold) {
             this.threshold = threshold;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ButtonConfiguration)) {
+                return false;
+            }
+            ButtonConfiguration other = (ButtonConfiguration) o;
+            return currency.equalsIgnoreCase(other.currency) && Double.compare(threshold, other.threshold) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(currency.toUpperCase(Locale.ROOT), threshold);
+        }
     }
 }
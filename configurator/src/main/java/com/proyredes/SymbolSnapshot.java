@@ -0,0 +1,168 @@
+package com.proyredes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Copia en disco de los símbolos válidos de Binance, ordenados para buscarlos por
+// búsqueda binaria directamente sobre el archivo mapeado en memoria, sin cargarlos.
+// Es inmutable y sólo se lee con accesos absolutos, así que varios hilos pueden
+// consultarla a la vez sin sincronizar.
+//
+// Formato (big endian):
+//   int magic, int versión, long hora de descarga, int n.º de símbolos,
+//   int longitud del ETag, ETag (UTF-8),
+//   int[n + 1] desplazamientos de cada símbolo dentro de la zona de datos,
+//   zona de datos con los símbolos en ASCII, seguidos y en orden.
+public class SymbolSnapshot {
+    private static final int MAGIC = 0x434D5359; // "CMSY"
+    private static final int VERSION = 1;
+    private static final int FETCHED_AT_OFFSET = 8;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final long fetchedAt;
+    private final String etag;
+    private final int indexStart;
+    private final int dataStart;
+
+    private SymbolSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 24 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Copia de símbolos con formato desconocido");
+        }
+        this.fetchedAt = buffer.getLong(FETCHED_AT_OFFSET);
+        this.count = buffer.getInt(16);
+        int etagLength = buffer.getInt(20);
+        if (count < 0 || etagLength < 0 || 24L + etagLength + 4L * (count + 1) > buffer.limit()) {
+            throw new IOException("Copia de símbolos truncada");
+        }
+        byte[] etagBytes = new byte[etagLength];
+        buffer.get(24, etagBytes);
+        this.etag = etagLength == 0 ? null : new String(etagBytes, UTF_8);
+        this.indexStart = 24 + etagLength;
+        this.dataStart = indexStart + 4 * (count + 1);
+        if ((long) dataStart + buffer.getInt(indexStart + 4 * count) > buffer.limit()) {
+            throw new IOException("Copia de símbolos truncada");
+        }
+    }
+
+    // Construir la copia en memoria a partir de los símbolos descargados
+    public static SymbolSnapshot build(Collection<String> symbols, String etag, long fetchedAt) throws IOException {
+        TreeSet<String> sorted = new TreeSet<>();
+        int dataLength = 0;
+        for (String symbol : symbols) {
+            String normalized = symbol.toUpperCase(Locale.ROOT);
+            if (sorted.add(normalized)) {
+                dataLength += normalized.length();
+            }
+        }
+        byte[] etagBytes = etag == null ? new byte[0] : etag.getBytes(UTF_8);
+
+        ByteBuffer buffer = ByteBuffer.allocate(24 + etagBytes.length + 4 * (sorted.size() + 1) + dataLength);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(fetchedAt).putInt(sorted.size())
+                .putInt(etagBytes.length).put(etagBytes);
+        int offset = 0;
+        for (String symbol : sorted) {
+            buffer.putInt(offset);
+            offset += symbol.length();
+        }
+        buffer.putInt(offset);
+        for (String symbol : sorted) {
+            buffer.put(symbol.getBytes(US_ASCII));
+        }
+        buffer.flip();
+        return new SymbolSnapshot(buffer);
+    }
+
+    // Abrir una copia guardada; el archivo queda mapeado en memoria
+    public static SymbolSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SymbolSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Guardar en disco; se escribe a un temporal y se renombra para no dejar copias a medias
+    public void write(Path path) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "symbols", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer data = buffer.duplicate();
+                data.rewind();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // La misma lista con otra hora de descarga (Binance respondió 304: no ha cambiado)
+    public SymbolSnapshot withFetchedAt(long fetchedAt) throws IOException {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.limit());
+        copy.put(buffer.duplicate().rewind()).flip();
+        copy.putLong(FETCHED_AT_OFFSET, fetchedAt);
+        return new SymbolSnapshot(copy);
+    }
+
+    public boolean contains(String symbol) {
+        String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+        byte[] key = normalized.getBytes(US_ASCII);
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    // Comparar el símbolo i-ésimo con la clave, byte a byte
+    private int compare(int index, byte[] key) {
+        int start = dataStart + buffer.getInt(indexStart + 4 * index);
+        int end = dataStart + buffer.getInt(indexStart + 4 * (index + 1));
+        int length = end - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+}
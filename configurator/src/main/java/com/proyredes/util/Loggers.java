@@ -0,0 +1,26 @@
+package com.proyredes.util;
+
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class Loggers {
+    private Loggers() {
+    }
+
+    // Logger con salida por consola y el formato de colores del proyecto
+    public static Logger getLogger(Class<?> clazz) {
+        Logger logger = Logger.getLogger(clazz.getName());
+        synchronized (logger) {
+            if (logger.getHandlers().length == 0) {
+                ConsoleHandler handler = new ConsoleHandler();
+                handler.setFormatter(new LogFormatter());
+                handler.setLevel(Level.ALL);
+                logger.addHandler(handler);
+                logger.setUseParentHandlers(false);
+                logger.setLevel(Level.ALL);
+            }
+        }
+        return logger;
+    }
+}
@@ -30,6 +30,8 @@ String selectedSymbol = "BTCUSDT";
 float alertThreshold = 999999.0;
 float lastPrice = 0.0;
 int alarmDuration = 1000;
+int selectedButton = 0;
+unsigned long long appliedVersion = 0;
 
 unsigned long lastWiFiAttempt = 0;
 unsigned long lastMQTTAttempt = 0;
@@ -94,11 +96,79 @@ void connectToWiFi() {
 // MQTT
 //------------------------------------------
 
-int getButtonIndexFromTopic(const String &topic) {
-    if (topic.indexOf("button1") != -1) return 0;
-    if (topic.indexOf("button2") != -1) return 1;
-    if (topic.indexOf("button3") != -1) return 2;
-    return -1;
+// Configuración completa en un solo mensaje retenido:
+//   C1;<versión>;<duración de alarma>;<moneda 1>;<límite 1>;<moneda 2>;<límite 2>;<moneda 3>;<límite 3>
+// Se valida entera antes de tocar nada; si algo falla o la versión no es más nueva que la
+// aplicada, se descarta y el monitor sigue con la configuración anterior.
+bool applyConfig(const String &text) {
+    String fields[9];
+    int count = 0;
+    int start = 0;
+    while (count < 9) {
+        int end = text.indexOf(';', start);
+        fields[count++] = end == -1 ? text.substring(start) : text.substring(start, end);
+        if (end == -1) break;
+        start = end + 1;
+    }
+    if (count != 9 || text.indexOf(';', start) != -1 || fields[0] != "C1") return false;
+
+    char *end;
+    unsigned long long version = strtoull(fields[1].c_str(), &end, 10);
+    if (*end != '\0' || version <= appliedVersion) return false;
+
+    long duration = strtol(fields[2].c_str(), &end, 10);
+    if (*end != '\0' || duration <= 0) return false;
+
+    ButtonConfig received[3];
+    for (int i = 0; i < 3; i++) {
+        received[i].symbol = fields[3 + 2 * i];
+        received[i].threshold = strtod(fields[4 + 2 * i].c_str(), &end);
+        if (received[i].symbol.length() == 0 || *end != '\0' || received[i].threshold <= 0) return false;
+    }
+
+    for (int i = 0; i < 3; i++) {
+        buttonConfigs[i] = received[i];
+    }
+    alarmDuration = duration;
+    appliedVersion = version;
+    return true;
+}
+
+// Precio de un mensaje del sensor: formato binario (primer byte 0x01, o 0x02 con
+// tendencia) o JSON {"price":...,"trend":...}. trend queda en TREND_NONE si no viene.
+#define TREND_NONE -128
+
+float decodePrice(byte *payload, unsigned int length, const String &text, int &trend) {
+    trend = TREND_NONE;
+    if (length >= 2 && (payload[0] == 0x01 || payload[0] == 0x02)) {
+        unsigned int offset = 2 + payload[1];
+        if (length < offset + 8) return 0.0;
+
+        int64_t scaled = 0;
+        for (int i = 0; i < 8; i++) {
+            scaled = (scaled << 8) | payload[offset + i];
+        }
+        if (payload[0] == 0x02 && length > offset + 8) {
+            trend = (int8_t)payload[offset + 8];
+        }
+        return scaled / 100000000.0;
+    }
+
+    int trendIdx = text.indexOf("\"trend\":");
+    if (trendIdx != -1) {
+        trend = text.substring(trendIdx + 8).toInt();
+    }
+
+    int idx = text.indexOf("\"price\":");
+    if (idx == -1) return text.toFloat();
+    return text.substring(idx + 8).toFloat();
+}
+
+// LEDs: verde sube, rojo baja, azul estable
+void showTrend(int trend) {
+    digitalWrite(LEDV, trend > 0 ? HIGH : LOW);
+    digitalWrite(LEDR, trend < 0 ? HIGH : LOW);
+    digitalWrite(LEDB, trend == 0 ? HIGH : LOW);
 }
 
 void mqttCallback(char *topic, byte *payload, unsigned int length) {
@@ -112,9 +182,10 @@ void mqttCallback(char *topic, byte *payload, unsigned int length) {
     Serial.printf("MQTT: %s -> %s\n", topic, received.c_str());
 
     if (topicStr.startsWith(MQTT_TOPIC_CRYPTO)) {
-        float price = received.toFloat();
+        int trend;
+        float price = decodePrice(payload, length, received, trend);
 
-        if (topicStr.endsWith(selectedSymbol)) {
+        if (topicStr == MQTT_TOPIC_CRYPTO + "/" + selectedSymbol) {
             lcd.clear();
             lcd.setCursor(0, 0);
             lcd.print(selectedSymbol);
@@ -128,38 +199,26 @@ void mqttCallback(char *topic, byte *payload, unsigned int length) {
                 digitalWrite(BUZ, LOW);
             }
 
-            if (lastPrice == 0) {
+            if (trend != TREND_NONE) {
+                // Tendencia calculada por el sensor
+                showTrend(trend);
+            } else if (lastPrice == 0) {
                 digitalWrite(LEDB, HIGH);
-            } else if (price > lastPrice) {
-                digitalWrite(LEDV, HIGH);
-                digitalWrite(LEDR, LOW);
-                digitalWrite(LEDB, LOW);
-            } else if (price < lastPrice) {
-                digitalWrite(LEDV, LOW);
-                digitalWrite(LEDR, HIGH);
-                digitalWrite(LEDB, LOW);
             } else {
-                digitalWrite(LEDV, LOW);
-                digitalWrite(LEDR, LOW);
-                digitalWrite(LEDB, HIGH);
+                // Sensor sin análisis: comparar con el precio anterior
+                showTrend(price > lastPrice ? 1 : price < lastPrice ? -1 : 0);
             }
 
             lastPrice = price;
         }
     }
 
-    else if (topicStr.startsWith(MQTT_TOPIC_CONFIG)) {
-        if (topicStr == MQTT_TOPIC_CONFIG + "/alarmDuration") {
-            alarmDuration = received.toInt();
+    else if (topicStr == MQTT_TOPIC_CONFIG) {
+        if (applyConfig(received)) {
+            Serial.println("Config applied.");
+            updateCurrentSymbol(selectedButton);
         } else {
-            int idx = getButtonIndexFromTopic(topicStr);
-            if (idx >= 0) {
-                if (topicStr.endsWith("/symbol")) {
-                    buttonConfigs[idx].symbol = received;
-                } else if (topicStr.endsWith("/threshold")) {
-                    buttonConfigs[idx].threshold = received.toFloat();
-                }
-            }
+            Serial.println("Config ignored.");
         }
     }
 }
@@ -177,16 +236,11 @@ void connectToMQTTBroker() {
     if (mqttClient.connect(clientID.c_str(), MQTT_USER, MQTT_PASS)) {
         Serial.println("MQTT connected.");
 
-        for (int i = 0; i < 3; i++) {
-            mqttClient.subscribe((MQTT_TOPIC_CRYPTO + "/" + buttonConfigs[i].symbol).c_str());
-        }
-
-        for (int i = 1; i <= 3; i++) {
-            mqttClient.subscribe((MQTT_TOPIC_CONFIG + "/button" + String(i) + "/symbol").c_str());
-            mqttClient.subscribe((MQTT_TOPIC_CONFIG + "/button" + String(i) + "/threshold").c_str());
-        }
+        // Sólo el símbolo mostrado; el bróker entrega al momento su último precio retenido
+        mqttClient.subscribe((MQTT_TOPIC_CRYPTO + "/" + selectedSymbol).c_str());
 
-        mqttClient.subscribe((MQTT_TOPIC_CONFIG + "/alarmDuration").c_str());
+        // Configuración retenida: llega al suscribirse y cada vez que el configurador la cambia
+        mqttClient.subscribe(MQTT_TOPIC_CONFIG.c_str(), 1);
     } else {
         Serial.print("MQTT FAIL rc=");
         Serial.println(mqttClient.state());
@@ -198,6 +252,13 @@ void connectToMQTTBroker() {
 //------------------------------------------
 
 void updateCurrentSymbol(int button) {
+    selectedButton = button;
+
+    if (buttonConfigs[button].symbol != selectedSymbol) {
+        mqttClient.unsubscribe((MQTT_TOPIC_CRYPTO + "/" + selectedSymbol).c_str());
+        lastPrice = 0.0;
+    }
+
     selectedSymbol = buttonConfigs[button].symbol;
     alertThreshold = buttonConfigs[button].threshold;
 
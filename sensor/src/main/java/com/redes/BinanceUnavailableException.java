@@ -0,0 +1,16 @@
+package com.redes;
+
+// Binance no acepta peticiones por ahora: nos ha limitado (429/418), se ha agotado el
+// presupuesto de peso local o el circuito está abierto. Indica cuándo volver a intentarlo.
+public class BinanceUnavailableException extends ConnectBinanceException {
+    private final long retryAfterMillis;
+
+    public BinanceUnavailableException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
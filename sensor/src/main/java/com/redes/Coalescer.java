@@ -0,0 +1,78 @@
+package com.redes;
+
+import java.util.concurrent.*;
+
+// Agrupa las ráfagas del stream: cada símbolo se entrega como mucho una vez por ventana.
+// La primera actualización tras una ventana tranquila sale al momento; las que llegan
+// dentro de la ventana se sustituyen entre sí y sólo la última se entrega al cerrarla.
+public class Coalescer {
+    public interface Sink {
+        void deliver(String symbol, double price, long timestamp);
+    }
+
+    private final long windowMillis;
+    private final PublishFilter filter;
+    private final Sink sink;
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public Coalescer(long windowMillis, PublishFilter filter, Sink sink) {
+        this.windowMillis = windowMillis;
+        this.filter = filter;
+        this.sink = sink;
+    }
+
+    public void offer(String symbol, double price, long timestamp) {
+        Slot slot = slots.computeIfAbsent(symbol, s -> new Slot());
+        long now = System.currentTimeMillis();
+        synchronized (slot) {
+            if (slot.pending) {
+                // Ya hay un precio esperando: se reemplaza
+                slot.price = price;
+                slot.timestamp = timestamp;
+                filter.recordCoalesced();
+                return;
+            }
+            long wait = slot.lastDelivery + windowMillis - now;
+            if (wait > 0) {
+                slot.pending = true;
+                slot.price = price;
+                slot.timestamp = timestamp;
+                scheduler.schedule(() -> flush(symbol, slot), wait, TimeUnit.MILLISECONDS);
+                return;
+            }
+            slot.lastDelivery = now;
+        }
+        sink.deliver(symbol, price, timestamp);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush(String symbol, Slot slot) {
+        double price;
+        long timestamp;
+        synchronized (slot) {
+            if (!slot.pending) {
+                return;
+            }
+            slot.pending = false;
+            slot.lastDelivery = System.currentTimeMillis();
+            price = slot.price;
+            timestamp = slot.timestamp;
+        }
+        sink.deliver(symbol, price, timestamp);
+    }
+
+    private static class Slot {
+        boolean pending;
+        double price;
+        long timestamp;
+        long lastDelivery;
+    }
+}
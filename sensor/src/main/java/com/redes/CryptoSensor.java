@@ -1,24 +1,41 @@
 package com.redes;
 
-import com.redes.dto.PriceResponse;
+import com.redes.alert.AlertService;
+import com.redes.analytics.RollingStats;
+import com.redes.cluster.ClusterMembership;
+import com.redes.codec.JsonCodec;
+import com.redes.codec.PayloadCodec;
+import com.redes.demand.SymbolDemand;
+import com.redes.history.TickStore;
+import com.redes.metrics.Metrics;
+import com.redes.metrics.MetricsServer;
+import com.redes.outbox.Outbox;
+import com.redes.outbox.OutboxDrainer;
+import com.redes.source.BinancePriceSource;
+import com.redes.source.BinanceStreamSource;
+import com.redes.source.CircuitBreaker;
+import com.redes.source.PriceCache;
+import com.redes.source.RateLimiter;
+import com.redes.util.AsyncHandler;
 import com.redes.util.Config;
-import com.redes.util.LogFormatter;
+import com.redes.util.LogSampler;
+import com.redes.util.Loggers;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
 import com.hivemq.client.mqtt.MqttClient;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
-import com.hivemq.client.mqtt.mqtt3.Mqtt3BlockingClient;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3ClientBuilder;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.message.connect.Mqtt3ConnectBuilder;
+import com.hivemq.client.mqtt.mqtt3.message.connect.connack.Mqtt3ConnAck;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Instant;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.logging.*;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class CryptoSensor {
@@ -27,153 +44,410 @@ public class CryptoSensor {
     private static final String HOST = config.getString("host");
     private static final String PASSWORD = config.getString("password");
     private static final int PORT = config.getInt("port");
+    private static final boolean TLS = config.getBoolean("tls", true);
     private static final String TOPIC = config.getString("topic");
+    private static final boolean RETAIN = config.getBoolean("retain", true);
+    private static final int PUBLISH_WINDOW = config.getInt("publishWindow", 64);
+    private static final String CODEC = config.getString("codec", JsonCodec.NAME);
+    private static final Map<String, PayloadCodec> SYMBOL_CODECS = config.getSubset("codec.").entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, e -> PayloadCodec.forName(e.getValue())));
     private static final String USERNAME = config.getString("username");
     private static final int INTERVAL = config.getInt("interval");
-    private static final Set<String> SYMBOLS = Arrays.stream(config.getString("symbols").split(","))
+    private static final boolean BATCH = config.getBoolean("batch", true);
+    private static final boolean CONCURRENT = config.getBoolean("concurrent", false);
+    private static final int MAX_IN_FLIGHT = config.getInt("maxInFlight", 16);
+    private static final int TICK_DEADLINE = config.getInt("tickDeadline", INTERVAL);
+    private static final Set<String> SYMBOLS = Arrays.stream(config.getString("symbols", "").split(","))
             .map(String::trim)
+            .filter(symbol -> !symbol.isEmpty())
             .collect(Collectors.toSet());
 
-    private static final Logger logger = Logger.getLogger(CryptoSensor.class.getName());
-    static {
-        ConsoleHandler handler = new ConsoleHandler();
-        handler.setFormatter(new LogFormatter());
-        handler.setLevel(Level.ALL);
-        logger.addHandler(handler);
-        logger.setUseParentHandlers(false);
-        logger.setLevel(Level.ALL);
-    }
+    private static final String SOURCE = config.getString("source", "rest");
+    private static final String STREAM_URL = config.getString("streamUrl", BinanceStreamSource.DEFAULT_BASE_URL);
+    private static final String STREAM_TYPE = config.getString("streamType", "miniTicker");
+    private static final int STREAM_STALE_TIMEOUT = config.getInt("streamStaleTimeout", 60000);
 
-    // Obtener el precio actual de una criptomoneda desde la API pública de Binance
-    public double getCryptoPrice(String symbol) throws ConnectBinanceException {
-        // Validar el símbolo
-        if (symbol == null || symbol.trim().isEmpty()) {
-            throw new ConnectBinanceException("Símbolo inválido: " + symbol);
-        }
+    private static final double DEADBAND_ABSOLUTE = config.getDouble("deadbandAbsolute", 0);
+    private static final double DEADBAND_PERCENT = config.getDouble("deadbandPercent", 0);
+    private static final int HEARTBEAT = config.getInt("heartbeat", 60000);
+    private static final int COALESCE_WINDOW = config.getInt("coalesceWindow", 1000);
 
-        // Normalizar el símbolo
-        String trimmed = symbol.trim().toUpperCase(Locale.ROOT);
+    private static final String CONFIG_TOPIC = config.getString("configTopic",
+            config.getString("alertConfigTopic", MonitorConfigSubscriber.DEFAULT_CONFIG_TOPIC));
+    private static final boolean DEMAND = config.getBoolean("demand", false);
+    private static final int DEMAND_IDLE = config.getInt("demandIdle", 600000);
 
-        String url = String.format("https://api.binance.com/api/v3/ticker/price?symbol=%s", trimmed);
-        try {
-            // Petición HTTP
-            HttpClient httpClient = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .header("Accept", "application/json")
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            // Código de respuesta
-            int status = response.statusCode();
-            if (status != 200) {
-                throw new ConnectBinanceException("Respuesta HTTP inválida: " + status);
-            }
+    private static final boolean ALERTS = config.getBoolean("alerts", false);
+    private static final double ALERT_HYSTERESIS = config.getDouble("alertHysteresis", 0.5);
 
-            // Respuesta no vacía
-            String body = response.body();
-            if (body == null || body.isEmpty()) {
-                throw new ConnectBinanceException("Respuesta vacía: " + trimmed);
-            }
+    private static final boolean ANALYTICS = config.getBoolean("analytics", false);
+    private static final int ANALYTICS_WINDOW = config.getInt("analyticsWindow", 20);
+    private static final double ANALYTICS_ALPHA = config.getDouble("analyticsAlpha", 0.3);
+    private static final double TREND_THRESHOLD = config.getDouble("trendThreshold", 0.5);
+    private static final int TREND_DEBOUNCE = config.getInt("trendDebounce", 3);
 
-            // Convertir JSON
-            Gson gson = new Gson();
-            PriceResponse priceResponse;
-            try {
-                priceResponse = gson.fromJson(body, PriceResponse.class);
-            } catch (JsonSyntaxException e) {
-                throw new ConnectBinanceException("Formato JSON inesperado en la respuesta: " + body, e);
-            }
+    private static final String HISTORY_DIR = config.getString("historyDir", "");
+    private static final int HISTORY_CAPACITY = config.getInt("historyCapacity", 65536);
+    private static final int HISTORY_QUEUE = config.getInt("historyQueue", 8192);
 
-            // Validar el campo
-            if (priceResponse == null || priceResponse.getPrice() == null) {
-                throw new ConnectBinanceException("La respuesta no contiene el campo 'price': " + body);
-            }
+    private static final int RECONNECT_DELAY = config.getInt("reconnectDelay", 1000);
+    private static final int RECONNECT_MAX_DELAY = config.getInt("reconnectMaxDelay", 60000);
+
+    private static final boolean CLUSTER = config.getBoolean("cluster", false);
+    private static final String CLUSTER_TOPIC = config.getString("clusterTopic", ClusterMembership.DEFAULT_TOPIC);
+    private static final String NODE_ID = config.getString("nodeId", ClusterMembership.defaultNodeId());
+    private static final int CLUSTER_HEARTBEAT = config.getInt("clusterHeartbeat", 5000);
+    private static final int CLUSTER_TIMEOUT = config.getInt("clusterTimeout", 15000);
+    private static final int CLUSTER_REPLICAS = config.getInt("clusterReplicas", 64);
+
+    private static final String OUTBOX_DIR = config.getString("outboxDir", "");
+    private static final int OUTBOX_SEGMENT_SIZE = config.getInt("outboxSegmentSize", 8 * 1024 * 1024);
+    private static final int OUTBOX_MAX_SEGMENTS = config.getInt("outboxMaxSegments", 16);
+    private static final int OUTBOX_SYNC_INTERVAL = config.getInt("outboxSyncInterval", 1000);
+    private static final int OUTBOX_DRAIN_RATE = config.getInt("outboxDrainRate", 200);
+    private static final int OUTBOX_BATCH = config.getInt("outboxBatch", 1000);
 
-            double price = Double.parseDouble(priceResponse.getPrice());
-            logger.log(Level.INFO, "{0} => {1}", new Object[] { trimmed, price });
+    private static final int LOG_SAMPLE_INTERVAL = config.getInt("logSampleInterval", 10000);
+    private static final int METRICS_PORT = config.getInt("metricsPort", 0);
 
-            return price;
-        } catch (IOException | InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new ConnectBinanceException("Error conectando a Binance", e);
+    private static final String BINANCE_URL = config.getString("binanceUrl", BinancePriceSource.DEFAULT_BASE_URL);
+    private static final int CONNECT_TIMEOUT = config.getInt("connectTimeout", 5000);
+    private static final int REQUEST_TIMEOUT = config.getInt("requestTimeout", 10000);
+    private static final int WEIGHT_PER_MINUTE = config.getInt("weightPerMinute", RateLimiter.DEFAULT_WEIGHT_PER_MINUTE);
+    private static final int BREAKER_FAILURES = config.getInt("breakerFailures", 5);
+    private static final int BREAKER_DELAY = config.getInt("breakerDelay", 1000);
+    private static final int BREAKER_MAX_DELAY = config.getInt("breakerMaxDelay", 300000);
 
-        } catch (NumberFormatException nfe) {
-            throw new ConnectBinanceException("No se pudo convertir el precio para " + trimmed, nfe);
+    private static final int PRICE_CACHE_MAX_AGE = config.getInt("priceCacheMaxAge", 1000);
+    private static final int PRICE_CACHE_STALE_WINDOW = config.getInt("priceCacheStaleWindow", 5000);
+    private static final int PRICE_CACHE_SIZE = config.getInt("priceCacheSize", 1024);
+
+    private static final Logger logger = Loggers.getLogger(CryptoSensor.class);
+
+    private final BinancePriceSource priceSource;
+    private final PriceCache priceCache;
+    private final LogSampler sampler = Loggers.newSampler();
+
+    public CryptoSensor() {
+        this(new BinancePriceSource(BINANCE_URL,
+                Duration.ofMillis(CONNECT_TIMEOUT),
+                Duration.ofMillis(REQUEST_TIMEOUT)));
+    }
+
+    public CryptoSensor(BinancePriceSource priceSource) {
+        this(new PriceCache(priceSource, PRICE_CACHE_MAX_AGE, PRICE_CACHE_STALE_WINDOW, PRICE_CACHE_SIZE));
+    }
+
+    public CryptoSensor(PriceCache priceCache) {
+        this.priceSource = priceCache.getSource();
+        this.priceCache = priceCache;
+    }
+
+    public PriceCache getPriceCache() {
+        return priceCache;
+    }
+
+    // Obtener el precio actual de una criptomoneda; se sirve desde la caché si es reciente
+    public double getCryptoPrice(String symbol) throws ConnectBinanceException {
+        double price = priceCache.getPrice(symbol);
+        if (sampler.sample(symbol) >= 0) {
+            logger.log(Level.INFO, "{0} => {1}", new Object[] { symbol, price });
         }
+        return price;
+    }
+
+    // Obtener los precios de varias criptomonedas con el menor número posible de peticiones
+    public Map<String, Double> getCryptoPrices(Collection<String> symbols) throws ConnectBinanceException {
+        Map<String, Double> prices = priceSource.getPrices(symbols);
+        logger.log(Level.INFO, "Obtenidos {0} precios", prices.size());
+        return prices;
+    }
+
+    // Resumen del uso de conexiones hacia Binance
+    public String getConnectionStats() {
+        return String.format(Locale.ROOT, "peticiones=%d, handshakes TLS=%d, conexiones reutilizadas=%d, circuito=%s, peso disponible=%.0f",
+                priceSource.getRequestCount(),
+                priceSource.getHandshakeCount(),
+                priceSource.getReusedConnectionCount(),
+                priceSource.getCircuitState(),
+                priceSource.getAvailableWeight());
     }
 
     public static void main(String[] args) {
-        CryptoSensor sensor = new CryptoSensor();
+        Loggers.setSampleInterval(LOG_SAMPLE_INTERVAL);
+        Metrics.setTickInterval(INTERVAL);
+        MetricsServer metricsServer = startMetricsServer();
+
+        BinancePriceSource priceSource = new BinancePriceSource(BINANCE_URL,
+                Duration.ofMillis(CONNECT_TIMEOUT),
+                Duration.ofMillis(REQUEST_TIMEOUT),
+                new RateLimiter(WEIGHT_PER_MINUTE),
+                new CircuitBreaker(BREAKER_FAILURES, BREAKER_DELAY, BREAKER_MAX_DELAY));
+        CryptoSensor sensor = new CryptoSensor(priceSource);
 
-        // Construir el cliente MQTT
-        Mqtt3BlockingClient mqttClient = MqttClient.builder()
+        // Construir el cliente MQTT; si se pierde la conexión se reintenta sola con espera creciente
+        Mqtt3ClientBuilder clientBuilder = MqttClient.builder()
                 .useMqttVersion3()
                 .serverHost(HOST)
-                .serverPort(PORT)
-                .sslWithDefaultConfig()
-                .buildBlocking();
+                .serverPort(PORT);
+        if (TLS) {
+            clientBuilder = clientBuilder.sslWithDefaultConfig();
+        }
+        Mqtt3AsyncClient mqttClient = clientBuilder
+                .automaticReconnect()
+                .initialDelay(RECONNECT_DELAY, TimeUnit.MILLISECONDS)
+                .maxDelay(RECONNECT_MAX_DELAY, TimeUnit.MILLISECONDS)
+                .applyAutomaticReconnect()
+                .addConnectedListener(context -> logger.log(Level.INFO,
+                        "Conectado al broker MQTT en {0}:{1}", new Object[] { HOST, String.valueOf(PORT) }))
+                .addDisconnectedListener(context -> logger.log(Level.WARNING,
+                        "Desconectado del broker MQTT: {0}", context.getCause().getMessage()))
+                .buildAsync();
 
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
         try {
-            // Conectarse al bróker MQTT
-            mqttClient.connectWith()
+            // Conectarse al bróker MQTT sin esperar: si no está disponible se sigue obteniendo
+            // precios (al outbox, si está activo) y la reconexión automática lo reintenta
+            Mqtt3ConnectBuilder.Send<CompletableFuture<Mqtt3ConnAck>> connect = mqttClient.connectWith()
                     .simpleAuth()
                     .username(USERNAME)
                     .password(PASSWORD.getBytes())
-                    .applySimpleAuth()
-                    .send();
-            logger.log(Level.INFO,
-                    "Conectado al broker MQTT en {0}:{1}",
-                    new Object[] { HOST, String.valueOf(PORT) });
-
-            // Tarea periódica: por cada símbolo llamar a Binance y publicar el precio
-            Runnable task = () -> {
-                for (String symbol : SYMBOLS) {
+                    .applySimpleAuth();
+            if (CLUSTER) {
+                // Si el nodo se cae, el bróker borra su latido y los demás se reparten sus símbolos
+                connect = connect.willPublish()
+                        .topic(ClusterMembership.heartbeatTopic(CLUSTER_TOPIC, NODE_ID))
+                        .qos(MqttQos.AT_LEAST_ONCE)
+                        .retain(true)
+                        .applyWillPublish();
+            }
+            connect.send()
+                    .whenComplete((connAck, error) -> {
+                        if (error != null) {
+                            logger.log(Level.WARNING, "No se pudo conectar al broker MQTT; se reintentará", error);
+                        }
+                    });
+
+            PublishFilter filter = new PublishFilter(DEADBAND_ABSOLUTE, DEADBAND_PERCENT, HEARTBEAT);
+            PricePublisher publisher = new PricePublisher(mqttClient, TOPIC, RETAIN, filter, PUBLISH_WINDOW,
+                    PayloadCodec.forName(CODEC), SYMBOL_CODECS);
+
+            // Outbox en disco para los mensajes que no pueden salir (outboxDir vacío lo desactiva)
+            OutboxDrainer drainer = null;
+            if (!OUTBOX_DIR.isBlank()) {
+                Outbox outbox = new Outbox(Paths.get(OUTBOX_DIR), OUTBOX_SEGMENT_SIZE, OUTBOX_MAX_SEGMENTS);
+                publisher.setOutbox(outbox);
+                drainer = new OutboxDrainer(outbox, mqttClient, OUTBOX_BATCH, OUTBOX_DRAIN_RATE);
+                drainer.start(Math.min(1000, RECONNECT_DELAY), OUTBOX_SYNC_INTERVAL);
+            }
+            OutboxDrainer outboxDrainer = drainer;
+
+            // Tendencia calculada en el sensor y publicada con cada precio
+            if (ANALYTICS) {
+                publisher.setAnalytics(new RollingStats(ANALYTICS_WINDOW, ANALYTICS_ALPHA, TREND_THRESHOLD, TREND_DEBOUNCE));
+            }
+
+            // Configuraciones de los monitores: umbrales para las alertas y símbolos a obtener
+            MonitorConfigSubscriber configs = ALERTS || DEMAND ? new MonitorConfigSubscriber(mqttClient, CONFIG_TOPIC) : null;
+
+            // Alertas de umbral: los monitores reciben sólo los cruces en <id>/alerts
+            AlertService alerts = ALERTS ? new AlertService(mqttClient, ALERT_HYSTERESIS) : null;
+            if (alerts != null) {
+                configs.addListener(alerts);
+                publisher.addPriceListener(alerts.getEngine());
+            }
+
+            // Histórico de ticks y velas en archivos mapeados (historyDir vacío lo desactiva)
+            TickStore history = HISTORY_DIR.isBlank() ? null : new TickStore(Paths.get(HISTORY_DIR), HISTORY_CAPACITY, HISTORY_QUEUE);
+            if (history != null) {
+                publisher.addPriceListener(history);
+            }
+
+            ClusterMembership cluster;
+            SymbolDemand demand;
+            Runnable stopSource;
+            if ("stream".equalsIgnoreCase(SOURCE)) {
+                // Publicar cada actualización del stream en cuanto llega, como mucho una vez por ventana
+                Coalescer coalescer = new Coalescer(COALESCE_WINDOW, filter, (symbol, price, timestamp) -> {
                     try {
-                        double price = sensor.getCryptoPrice(symbol);
-                        String message = String.format("{\"symbol\":\"%s\",\"price\":%.8f,\"timestamp\":%d}",
-                                symbol, price, Instant.now().toEpochMilli());
-
-                        // Publicar en el tópico
-                        mqttClient.publishWith()
-                                .topic(TOPIC)
-                                .qos(MqttQos.AT_LEAST_ONCE)
-                                .payload(message.getBytes())
-                                .send();
-                        logger.log(Level.INFO, "Publicado: {0}", message);
-                    } catch (ConnectBinanceException e) {
-                        logger.log(Level.SEVERE, "Error obteniendo precio para " + symbol, e);
+                        publisher.publish(symbol, price, timestamp);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
                     } catch (Exception ex) {
                         logger.log(Level.SEVERE, "Error durante publicación MQTT para " + symbol, ex);
                     }
-                }
-            };
+                });
+                BinanceStreamSource stream = new BinanceStreamSource(STREAM_URL, SYMBOLS, STREAM_TYPE,
+                        Duration.ofMillis(CONNECT_TIMEOUT), Duration.ofMillis(STREAM_STALE_TIMEOUT),
+                        coalescer::offer);
+                stream.start();
+                scheduler.shutdown();
+                cluster = startCluster(mqttClient, (owned, nodes) -> stream.setSymbols(owned));
+                demand = startDemand(configs, cluster, priceSource, stream::setSymbols);
+                stopSource = () -> {
+                    stream.stop();
+                    coalescer.shutdown();
+                };
+            } else {
+                // Tarea periódica: obtener los precios de Binance y publicarlos
+                PriceTask task = CONCURRENT
+                        ? new PriceTask(sensor.getPriceCache(), publisher, SYMBOLS, BATCH, MAX_IN_FLIGHT, Duration.ofMillis(TICK_DEADLINE))
+                        : new PriceTask(sensor.getPriceCache(), publisher, SYMBOLS, BATCH);
 
-            // Arrancar la tarea para ejecutarse repetidamente
-            scheduler.scheduleAtFixedRate(task, 0, INTERVAL, TimeUnit.MILLISECONDS);
+                // Arrancar la tarea para ejecutarse repetidamente
+                Runnable tick = () -> {
+                    task.run();
+                    logger.log(Level.FINE, "Conexiones con Binance: {0}", sensor.getConnectionStats());
+                    logger.log(Level.FINE, "Caché de precios: {0}", sensor.getPriceCache().getStats());
+                    logger.log(Level.FINE, "Mensajes: {0}", filter.getStats());
+                    logger.log(Level.FINE, "Publicaciones: {0}", publisher.getStats());
+                };
+                scheduler.scheduleAtFixedRate(tick, 0, INTERVAL, TimeUnit.MILLISECONDS);
+                cluster = startCluster(mqttClient, (owned, nodes) -> task.setSymbols(owned));
+                demand = startDemand(configs, cluster, priceSource, task::setSymbols);
+                stopSource = () -> {
+                    logger.log(Level.INFO, "Conexiones con Binance: {0}", sensor.getConnectionStats());
+                    logger.log(Level.INFO, "Caché de precios: {0}", sensor.getPriceCache().getStats());
+                    task.shutdown();
+                    scheduler.shutdownNow();
+                };
+            }
+            startConfigs(configs);
 
             // Añadir un shutdown hook para cerrar conexiones al terminar la JVM
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                logger.info("Deteniendo y desconectando MQTT...");
-                try {
-                    scheduler.shutdownNow();
-                    if (mqttClient.getState().isConnected()) {
-                        mqttClient.disconnect();
-                    }
-                } catch (Exception e) {
-                    logger.log(Level.WARNING, "Error durante la desconexión", e);
-                }
-            }));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(stopSource, mqttClient, filter, publisher,
+                    cluster, demand, outboxDrainer, history, alerts, metricsServer)));
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error en la conexión MQTT", e);
+            logger.log(Level.SEVERE, "Error al arrancar el sensor", e);
             try {
                 scheduler.shutdownNow();
+                if (metricsServer != null) {
+                    metricsServer.stop();
+                }
             } catch (Exception ignore) {
             }
         }
     }
+
+    // Parar el sensor: primero lo que obtiene precios (stopSource), después esperar las
+    // publicaciones en vuelo, vaciar el outbox y el histórico y, por último, desconectar.
+    // Los componentes desactivados llegan como null
+    private static void shutdown(Runnable stopSource, Mqtt3AsyncClient mqttClient, PublishFilter filter,
+            PricePublisher publisher, ClusterMembership cluster, SymbolDemand demand, OutboxDrainer outboxDrainer,
+            TickStore history, AlertService alerts, MetricsServer metricsServer) {
+        logger.info("Deteniendo y desconectando MQTT...");
+        logger.log(Level.INFO, "Mensajes: {0}", filter.getStats());
+        if (cluster != null) {
+            logger.log(Level.INFO, "Clúster: {0}", cluster.getStats());
+        }
+        if (demand != null) {
+            logger.log(Level.INFO, "Demanda: {0}", demand.getStats());
+        }
+        if (alerts != null) {
+            logger.log(Level.INFO, "Alertas: {0}", alerts.getEngine().getStats());
+        }
+        try {
+            if (demand != null) {
+                demand.stop();
+            }
+            if (cluster != null) {
+                cluster.stop();
+            }
+            stopSource.run();
+            publisher.flush(5, TimeUnit.SECONDS);
+            logger.log(Level.INFO, "Publicaciones: {0}", publisher.getStats());
+            if (outboxDrainer != null) {
+                outboxDrainer.stop();
+                logger.log(Level.INFO, "Outbox: {0}", outboxDrainer.getStats());
+            }
+            if (history != null) {
+                history.close();
+                logger.log(Level.INFO, "Histórico: {0}", history.getStats());
+            }
+            if (mqttClient.getState().isConnected()) {
+                mqttClient.disconnect().get(5, TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Error durante la desconexión", e);
+        }
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        closeLogging();
+    }
+
+    // Modo clúster: repartir SYMBOLS con los demás sensores conectados al bróker
+    private static ClusterMembership startCluster(Mqtt3AsyncClient mqttClient, ClusterMembership.Listener listener) {
+        if (!CLUSTER) {
+            return null;
+        }
+        ClusterMembership cluster = new ClusterMembership(mqttClient, CLUSTER_TOPIC, NODE_ID, SYMBOLS,
+                CLUSTER_HEARTBEAT, CLUSTER_TIMEOUT, CLUSTER_REPLICAS, listener);
+        cluster.start().whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.log(Level.WARNING, "No se pudo suscribir a los latidos del clúster", error);
+            }
+        });
+        return cluster;
+    }
+
+    // Modo por demanda: obtener sólo los símbolos que muestran los monitores (más los de
+    // `symbols`); con clúster, la demanda es lo que se reparte entre los nodos. Los
+    // símbolos que Binance rechaza salen de la demanda
+    private static SymbolDemand startDemand(MonitorConfigSubscriber configs, ClusterMembership cluster,
+            BinancePriceSource priceSource, Consumer<Set<String>> fetch) {
+        if (!DEMAND) {
+            return null;
+        }
+        SymbolDemand demand = new SymbolDemand(SYMBOLS, DEMAND_IDLE, symbols -> {
+            if (cluster != null) {
+                cluster.setSymbols(symbols);
+            } else {
+                fetch.accept(symbols);
+            }
+        });
+        demand.setValidator(symbol -> !priceSource.isInvalidSymbol(symbol));
+        priceSource.setInvalidSymbolListener(demand::reject);
+        configs.addListener(demand);
+        demand.start();
+        return demand;
+    }
+
+    // Suscribirse a las configuraciones una vez registrados todos los interesados
+    private static void startConfigs(MonitorConfigSubscriber configs) {
+        if (configs == null) {
+            return;
+        }
+        configs.start().whenComplete((ignored, error) -> {
+            if (error != null) {
+                logger.log(Level.WARNING, "No se pudo suscribir a " + configs.getConfigTopic(), error);
+            }
+        });
+    }
+
+    // Endpoint /metrics en el puerto metricsPort (0 lo desactiva)
+    private static MetricsServer startMetricsServer() {
+        if (METRICS_PORT <= 0) {
+            return null;
+        }
+        try {
+            MetricsServer server = new MetricsServer(METRICS_PORT);
+            server.start();
+            logger.log(Level.INFO, "Métricas disponibles en http://127.0.0.1:{0}/metrics", String.valueOf(METRICS_PORT));
+            return server;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo abrir el puerto de métricas " + METRICS_PORT, e);
+            return null;
+        }
+    }
+
+    // Vaciar el log asíncrono antes de que termine la JVM
+    private static void closeLogging() {
+        AsyncHandler handler = Loggers.getHandler();
+        if (handler.getDroppedCount() > 0) {
+            logger.log(Level.WARNING, "Registros de log descartados: {0}", handler.getDroppedCount());
+        }
+        handler.close();
+    }
 }
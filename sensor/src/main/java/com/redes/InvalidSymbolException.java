@@ -0,0 +1,9 @@
+package com.redes;
+
+// Binance ha rechazado la petición (400) por los símbolos que lleva: alguno no existe,
+// está mal escrito o ya no cotiza.
+public class InvalidSymbolException extends ConnectBinanceException {
+    public InvalidSymbolException(String message) {
+        super(message);
+    }
+}
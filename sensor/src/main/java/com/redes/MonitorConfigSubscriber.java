@@ -0,0 +1,115 @@
+package com.redes;
+
+import com.redes.codec.FixedPoint;
+import com.redes.util.Loggers;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Lee las configuraciones retenidas de los monitores (<id>/config, formato C1 del
+// configurador: C1;versión;alarma;símbolo;umbral;...) con una sola suscripción y las
+// reparte entre los interesados (alertas, símbolos a obtener). Las versiones que no
+// son más nuevas que la última aplicada de ese monitor se ignoran.
+public class MonitorConfigSubscriber {
+    public static final String DEFAULT_CONFIG_TOPIC = "+/config";
+    private static final String CONFIG_FORMAT = "C1";
+
+    public interface Listener {
+        // Umbrales del monitor por símbolo, en punto fijo: uno por botón, así que dos botones
+        // con el mismo símbolo (aunque uno esté en minúsculas) dan dos umbrales
+        void onConfiguration(String monitorId, Map<String, List<Long>> thresholds);
+
+        // Se ha borrado la configuración retenida del monitor
+        void onRemoved(String monitorId);
+    }
+
+    private static final Logger logger = Loggers.getLogger(MonitorConfigSubscriber.class);
+
+    private final Mqtt3AsyncClient mqttClient;
+    private final String configTopic;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Última versión aplicada de cada monitor, para ignorar configuraciones más antiguas
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    public MonitorConfigSubscriber(Mqtt3AsyncClient mqttClient, String configTopic) {
+        this.mqttClient = mqttClient;
+        this.configTopic = configTopic;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Suscribirse a las configuraciones; el bróker entrega al momento las retenidas
+    public CompletableFuture<Void> start() {
+        return mqttClient.subscribeWith()
+                .topicFilter(configTopic)
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .callback(this::onConfiguration)
+                .send()
+                .thenAccept(subAck -> logger.log(Level.INFO, "Configuraciones: suscrito a {0}", configTopic));
+    }
+
+    public String getConfigTopic() {
+        return configTopic;
+    }
+
+    private void onConfiguration(Mqtt3Publish publish) {
+        String topic = publish.getTopic().toString();
+        int slash = topic.lastIndexOf('/');
+        if (slash <= 0) {
+            return;
+        }
+        String monitorId = topic.substring(0, slash);
+        String text = new String(publish.getPayloadAsBytes(), UTF_8);
+
+        // Mensaje vacío: se ha borrado la configuración retenida
+        if (text.isEmpty()) {
+            if (versions.remove(monitorId) != null) {
+                for (Listener listener : listeners) {
+                    listener.onRemoved(monitorId);
+                }
+            }
+            return;
+        }
+
+        String[] fields = text.split(";");
+        try {
+            if (fields.length < 3 || fields.length % 2 == 0 || !fields[0].equals(CONFIG_FORMAT)) {
+                throw new IllegalArgumentException("formato desconocido");
+            }
+            long version = Long.parseLong(fields[1]);
+            Map<String, List<Long>> thresholds = new HashMap<>();
+            for (int i = 3; i < fields.length; i += 2) {
+                thresholds.computeIfAbsent(fields[i].trim().toUpperCase(Locale.ROOT), s -> new ArrayList<>())
+                        .add(FixedPoint.fromDouble(Double.parseDouble(fields[i + 1])));
+            }
+
+            Long previous = versions.get(monitorId);
+            if (previous != null && version <= previous) {
+                return;
+            }
+            versions.put(monitorId, version);
+            logger.log(Level.FINE, "Configuración de {0}: {1}", new Object[] { monitorId, thresholds.keySet() });
+            for (Listener listener : listeners) {
+                listener.onConfiguration(monitorId, thresholds);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.WARNING, "Configuración no reconocida en {0}: {1}", new Object[] { topic, text });
+        }
+    }
+}
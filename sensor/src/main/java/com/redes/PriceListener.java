@@ -0,0 +1,7 @@
+package com.redes;
+
+// Recibe cada precio obtenido antes de que el filtro decida si se publica
+// (alertas, histórico...); se llama en el hilo que publica, así que no debe bloquear
+public interface PriceListener {
+    void onPrice(String symbol, long scaledPrice, long timestamp);
+}
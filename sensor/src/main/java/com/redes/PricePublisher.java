@@ -0,0 +1,269 @@
+package com.redes;
+
+import com.redes.analytics.RollingStats;
+import com.redes.analytics.Trend;
+import com.redes.codec.FixedPoint;
+import com.redes.codec.JsonCodec;
+import com.redes.codec.PayloadCodec;
+import com.redes.metrics.Metrics;
+import com.redes.outbox.Outbox;
+import com.redes.util.LogSampler;
+import com.redes.util.Loggers;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Publica los precios obtenidos en el bróker MQTT.
+// Las publicaciones QoS 1 van en tubería sobre el cliente asíncrono: hasta `window`
+// mensajes pueden esperar su PUBACK a la vez. Con la ventana llena, publish() se
+// bloquea hasta que llegue una confirmación.
+//
+// Con un outbox, los mensajes que no pueden salir (sin conexión, o que fallan) se
+// guardan en disco y los reenvía el OutboxDrainer; mientras quede algo pendiente los
+// nuevos también van al outbox, para no adelantarse a los anteriores. Una publicación
+// directa que falla sólo se guarda si no ha salido ya otra más reciente del mismo símbolo
+// (cada una lleva un número de secuencia): si no, el reenvío dejaría retenido en el
+// bróker un precio más antiguo. Sin outbox, los precios obtenidos sin conexión se
+// descartan en lugar de acumularse en memoria.
+public class PricePublisher {
+    private static final Logger logger = Loggers.getLogger(PricePublisher.class);
+
+    private final Mqtt3AsyncClient mqttClient;
+    private final String topic;
+    private final boolean retain;
+    private final PublishFilter filter;
+    private final int window;
+    private final Semaphore inFlight;
+    private final PayloadCodec defaultCodec;
+    private final Map<String, PayloadCodec> symbolCodecs;
+    private final ConcurrentHashMap<String, String> symbolTopics = new ConcurrentHashMap<>();
+    // Secuencia de la última publicación de cada símbolo (directa o al outbox)
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> lastSequence = new ConcurrentHashMap<>();
+
+    // Buffers de codificación reutilizados entre publicaciones
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private final LogSampler sampler = Loggers.newSampler();
+    private final List<PriceListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile RollingStats analytics;
+    private volatile Outbox outbox;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+
+    // Cada símbolo se publica en <topic>/<símbolo>; con retain el bróker guarda el último valor
+    public PricePublisher(Mqtt3AsyncClient mqttClient, String topic, boolean retain, PublishFilter filter, int window) {
+        this(mqttClient, topic, retain, filter, window, JsonCodec.INSTANCE, Map.of());
+    }
+
+    // symbolCodecs permite elegir otro formato para el tópico de algún símbolo
+    public PricePublisher(Mqtt3AsyncClient mqttClient, String topic, boolean retain, PublishFilter filter, int window,
+            PayloadCodec defaultCodec, Map<String, PayloadCodec> symbolCodecs) {
+        this.mqttClient = mqttClient;
+        this.topic = topic;
+        this.retain = retain;
+        this.filter = filter;
+        this.window = window;
+        this.inFlight = new Semaphore(window);
+        this.defaultCodec = defaultCodec;
+        this.symbolCodecs = new HashMap<>();
+        symbolCodecs.forEach((symbol, codec) -> this.symbolCodecs.put(symbol.toUpperCase(Locale.ROOT), codec));
+    }
+
+    // Recibir cada precio, aunque el filtro no lo publique
+    public void addPriceListener(PriceListener listener) {
+        listeners.add(listener);
+    }
+
+    // Calcular la tendencia de cada símbolo y publicarla junto al precio
+    public void setAnalytics(RollingStats analytics) {
+        this.analytics = analytics;
+    }
+
+    // Guardar en disco lo que no se pueda publicar
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public PayloadCodec codecFor(String symbol) {
+        return symbolCodecs.getOrDefault(symbol.toUpperCase(Locale.ROOT), defaultCodec);
+    }
+
+    public String topicFor(String symbol) {
+        return symbolTopics.computeIfAbsent(symbol, s -> topic + "/" + s.toUpperCase(Locale.ROOT));
+    }
+
+    // Publicar el precio de un símbolo en el tópico; devuelve false si el filtro lo descarta
+    public boolean publish(String symbol, double price) throws InterruptedException {
+        return publish(symbol, price, System.currentTimeMillis());
+    }
+
+    public boolean publish(String symbol, double price, long timestamp) throws InterruptedException {
+        return publishScaled(symbol, FixedPoint.fromDouble(price), timestamp);
+    }
+
+    // Publicar un precio en punto fijo, tal como sale del PriceBook
+    public boolean publishScaled(String symbol, long scaledPrice, long timestamp) throws InterruptedException {
+        for (PriceListener listener : listeners) {
+            listener.onPrice(symbol, scaledPrice, timestamp);
+        }
+
+        RollingStats analytics = this.analytics;
+        byte trend = analytics != null ? analytics.update(symbol, scaledPrice) : Trend.NONE;
+
+        double price = FixedPoint.toDouble(scaledPrice);
+        if (filter != null && !filter.accept(symbol, price, trend, System.currentTimeMillis())) {
+            logger.log(Level.FINE, "Sin cambios relevantes en {0}; no se publica", symbol);
+            return false;
+        }
+
+        byte[] payload = encode(symbol, scaledPrice, timestamp, trend);
+
+        Outbox outbox = this.outbox;
+        boolean connected = mqttClient.getState().isConnected();
+        long seq = sequence.incrementAndGet();
+        lastSequence.merge(symbol, seq, Math::max);
+        if (outbox != null && (!connected || !outbox.isEmpty())) {
+            return enqueue(outbox, symbol, payload);
+        }
+        if (!connected) {
+            dropped.increment();
+            if (filter != null) {
+                filter.forget(symbol);
+            }
+            logger.log(Level.FINE, "Sin conexión con el bróker; se descarta {0}", symbol);
+            return false;
+        }
+
+        // Contrapresión: esperar hueco en la ventana de mensajes sin confirmar
+        long start = System.nanoTime();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            if (filter != null) {
+                filter.forget(symbol);
+            }
+            throw e;
+        }
+
+        sent.increment();
+        mqttClient.publishWith()
+                .topic(topicFor(symbol))
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .retain(retain)
+                .payload(payload)
+                .send()
+                .whenComplete((publish, error) -> {
+                    inFlight.release();
+                    if (error != null) {
+                        failed.increment();
+                        Metrics.failure(Metrics.PUBLISH, error);
+                        Outbox current = this.outbox;
+                        if (current != null && lastSequence.getOrDefault(symbol, seq) > seq) {
+                            // Ya salió un precio más reciente: reenviar éste lo pisaría
+                            superseded.increment();
+                            logger.log(Level.FINE, "Error durante publicación MQTT para {0}; ya hay un precio más reciente",
+                                    symbol);
+                            return;
+                        }
+                        if (current != null) {
+                            logger.log(Level.WARNING, "Error durante publicación MQTT para " + symbol
+                                    + "; se guarda en el outbox", error);
+                            enqueue(current, symbol, payload);
+                            return;
+                        }
+                        if (filter != null) {
+                            filter.forget(symbol);
+                        }
+                        logger.log(Level.SEVERE, "Error durante publicación MQTT para " + symbol, error);
+                    } else {
+                        acked.increment();
+                        Metrics.success(Metrics.PUBLISH);
+                        Metrics.recordLatency(Metrics.PUBLISH, symbol, System.nanoTime() - start);
+                        long skipped = sampler.sample(symbol);
+                        if (skipped == 0) {
+                            logger.log(Level.INFO, "Publicado: {0} => {1} ({2} bytes)",
+                                    new Object[] { symbol, price, payload.length });
+                        } else if (skipped > 0) {
+                            logger.log(Level.INFO, "Publicado: {0} => {1} ({2} bytes; {3} publicaciones sin registrar)",
+                                    new Object[] { symbol, price, payload.length, skipped });
+                        }
+                    }
+                });
+        return true;
+    }
+
+    private boolean enqueue(Outbox outbox, String symbol, byte[] payload) {
+        try {
+            outbox.append(topicFor(symbol), payload, retain);
+            queued.increment();
+            return true;
+        } catch (IOException e) {
+            dropped.increment();
+            if (filter != null) {
+                filter.forget(symbol);
+            }
+            logger.log(Level.SEVERE, "No se pudo guardar en el outbox el precio de " + symbol, e);
+            return false;
+        }
+    }
+
+    // Codificar en un buffer reutilizado; sólo se copia el resultado, que el cliente
+    // asíncrono necesita conservar hasta recibir el PUBACK
+    private byte[] encode(String symbol, long scaledPrice, long timestamp, byte trend) {
+        PayloadCodec codec = codecFor(symbol);
+        ByteBuffer buffer = buffers.poll();
+        int size = codec.maxSize(symbol.length());
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, 128));
+        }
+        try {
+            buffer.clear();
+            codec.encode(symbol, scaledPrice, timestamp, trend, buffer);
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    // Esperar a que se confirmen todos los mensajes en vuelo
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!inFlight.tryAcquire(window, timeout, unit)) {
+            return false;
+        }
+        inFlight.release(window);
+        return true;
+    }
+
+    public long getInFlightCount() {
+        return window - inFlight.availablePermits();
+    }
+
+    public String getStats() {
+        return String.format("enviados=%d, confirmados=%d, fallidos=%d, en vuelo=%d, al outbox=%d, descartados=%d, "
+                + "sustituidos=%d", sent.sum(), acked.sum(), failed.sum(), getInFlightCount(), queued.sum(),
+                dropped.sum(), superseded.sum());
+    }
+}
@@ -0,0 +1,257 @@
+package com.redes;
+
+import com.redes.metrics.Metrics;
+import com.redes.source.PriceBook;
+import com.redes.source.PriceCache;
+import com.redes.source.SymbolTable;
+import com.redes.util.LogSampler;
+import com.redes.util.Loggers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Tarea periódica: obtener los precios de Binance y publicarlos.
+// En modo secuencial procesa los símbolos uno tras otro en el hilo del planificador.
+// En modo concurrente cada símbolo se procesa en su propio hilo virtual, con un máximo
+// de peticiones en curso, un plazo por tick y sin solapar ticks lentos.
+// El conjunto de símbolos puede cambiarse en marcha (setSymbols); el cambio se aplica
+// a partir del siguiente tick.
+public class PriceTask implements Runnable {
+    private static final Logger logger = Loggers.getLogger(PriceTask.class);
+
+    private final PriceCache prices;
+    private final PricePublisher publisher;
+    private final boolean batch;
+    private volatile Selection selection;
+
+    private final boolean concurrent;
+    private final Duration tickDeadline;
+    private final Semaphore inFlightPermits;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Set<String> inFlightSymbols = ConcurrentHashMap.newKeySet();
+    private final LogSampler sampler = Loggers.newSampler();
+    private volatile boolean stopped;
+
+    // Modo secuencial
+    public PriceTask(PriceCache prices, PricePublisher publisher, Set<String> symbols, boolean batch) {
+        this.prices = prices;
+        this.publisher = publisher;
+        this.batch = batch;
+        this.selection = new Selection(symbols);
+        this.concurrent = false;
+        this.tickDeadline = null;
+        this.inFlightPermits = null;
+    }
+
+    // Modo concurrente sobre hilos virtuales
+    public PriceTask(PriceCache prices, PricePublisher publisher, Set<String> symbols, boolean batch,
+            int maxInFlight, Duration tickDeadline) {
+        this.prices = prices;
+        this.publisher = publisher;
+        this.batch = batch;
+        this.selection = new Selection(symbols);
+        this.concurrent = true;
+        this.tickDeadline = tickDeadline;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void run() {
+        if (stopped) {
+            return;
+        }
+        long start = Metrics.ticks().started();
+        if (!concurrent) {
+            try {
+                runSequential();
+            } finally {
+                Metrics.ticks().finished(start);
+            }
+            return;
+        }
+
+        // Si el tick anterior sigue en curso se salta este
+        if (!running.compareAndSet(false, true)) {
+            Metrics.ticks().skipped();
+            logger.warning("El tick anterior sigue en curso; se omite este tick");
+            return;
+        }
+        Thread.ofVirtual().name("tick").start(() -> {
+            try {
+                runConcurrent();
+            } finally {
+                running.set(false);
+                Metrics.ticks().finished(start);
+            }
+        });
+    }
+
+    // Sustituir los símbolos que se obtienen en cada tick
+    public void setSymbols(Set<String> symbols) {
+        selection = new Selection(symbols);
+    }
+
+    public Set<String> getSymbols() {
+        return selection.symbols;
+    }
+
+    // Impedir nuevos ticks
+    public void shutdown() {
+        stopped = true;
+    }
+
+    private void runSequential() {
+        Selection selection = this.selection;
+        SymbolTable table = selection.table;
+        PriceBook book = selection.book;
+        if (batch) {
+            if (!fetchAll(table, book)) {
+                return;
+            }
+            for (int id = 0; id < table.size(); id++) {
+                if (!book.has(id)) {
+                    logger.log(Level.SEVERE, "Binance no devolvió precio para {0}", table.symbol(id));
+                    continue;
+                }
+                publish(table.symbol(id), book.price(id), book.timestamp(id));
+            }
+            return;
+        }
+
+        // Una petición por símbolo
+        for (String symbol : selection.symbols) {
+            fetchAndPublish(symbol);
+        }
+    }
+
+    private void runConcurrent() {
+        long deadline = System.nanoTime() + tickDeadline.toNanos();
+        Selection selection = this.selection;
+        SymbolTable table = selection.table;
+        PriceBook book = selection.book;
+
+        // En modo por lotes la petición es única y sólo se reparte la publicación
+        if (batch && !fetchAll(table, book)) {
+            return;
+        }
+
+        Map<String, Thread> workers = new LinkedHashMap<>();
+        for (int id = 0; id < table.size(); id++) {
+            String symbol = table.symbol(id);
+
+            // Un símbolo cuya publicación anterior no ha terminado no se vuelve a lanzar
+            if (!inFlightSymbols.add(symbol)) {
+                logger.log(Level.WARNING, "{0} sigue en curso desde el tick anterior; se omite", symbol);
+                continue;
+            }
+
+            if (batch && !book.has(id)) {
+                inFlightSymbols.remove(symbol);
+                logger.log(Level.SEVERE, "Binance no devolvió precio para {0}", symbol);
+                continue;
+            }
+            long price = batch ? book.price(id) : 0;
+            long timestamp = batch ? book.timestamp(id) : 0;
+
+            workers.put(symbol, Thread.ofVirtual().name("precio-" + symbol).start(() -> {
+                try {
+                    inFlightPermits.acquire();
+                    try {
+                        if (batch) {
+                            publish(symbol, price, timestamp);
+                        } else {
+                            fetchAndPublish(symbol);
+                        }
+                    } finally {
+                        inFlightPermits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlightSymbols.remove(symbol);
+                }
+            }));
+        }
+
+        // Esperar hasta el plazo del tick; lo que no haya terminado se interrumpe
+        List<String> late = new ArrayList<>();
+        for (Map.Entry<String, Thread> entry : workers.entrySet()) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                if (remaining <= 0 || !entry.getValue().join(Duration.ofNanos(remaining))) {
+                    entry.getValue().interrupt();
+                    late.add(entry.getKey());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!late.isEmpty()) {
+            logger.log(Level.WARNING, "Plazo del tick agotado; interrumpidos: {0}", late);
+        }
+    }
+
+    private boolean fetchAll(SymbolTable table, PriceBook book) {
+        if (table.size() == 0) {
+            return false;
+        }
+        try {
+            int count = prices.fetchInto(table, book);
+            logger.log(Level.INFO, "Obtenidos {0} precios", count);
+            return true;
+        } catch (BinanceUnavailableException e) {
+            logger.log(Level.WARNING, "Tick omitido: {0}", e.getMessage());
+            return false;
+        } catch (ConnectBinanceException e) {
+            logger.log(Level.SEVERE, "Error obteniendo precios para " + table.symbols(), e);
+            return false;
+        }
+    }
+
+    private void fetchAndPublish(String symbol) {
+        try {
+            double price = prices.getFreshPrice(symbol);
+            if (sampler.sample(symbol) >= 0) {
+                logger.log(Level.INFO, "{0} => {1}", new Object[] { symbol, price });
+            }
+            publisher.publish(symbol, price);
+        } catch (BinanceUnavailableException e) {
+            logger.log(Level.WARNING, "{0} omitido: {1}", new Object[] { symbol, e.getMessage() });
+        } catch (ConnectBinanceException e) {
+            logger.log(Level.SEVERE, "Error obteniendo precio para " + symbol, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Error durante publicación MQTT para " + symbol, ex);
+        }
+    }
+
+    private void publish(String symbol, long scaledPrice, long timestamp) {
+        try {
+            publisher.publishScaled(symbol, scaledPrice, timestamp);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Error durante publicación MQTT para " + symbol, ex);
+        }
+    }
+
+    // Símbolos de un tick, con su tabla de índices y su libro de precios
+    private static class Selection {
+        final Set<String> symbols;
+        final SymbolTable table;
+        final PriceBook book;
+
+        Selection(Set<String> symbols) {
+            this.symbols = Set.copyOf(symbols);
+            this.table = new SymbolTable(this.symbols);
+            this.book = new PriceBook(table.size());
+        }
+    }
+}
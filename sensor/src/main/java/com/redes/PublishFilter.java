@@ -0,0 +1,89 @@
+package com.redes;
+
+import com.redes.analytics.Trend;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Filtro entre la obtención del precio y su publicación.
+// Recuerda el último precio publicado de cada símbolo y descarta los que no se han
+// movido más allá de la banda muerta, salvo que haya pasado el intervalo de heartbeat.
+public class PublishFilter {
+    private final double absoluteDeadband;
+    private final double percentDeadband;
+    private final long heartbeatMillis;
+
+    private final ConcurrentHashMap<String, LastPublished> last = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    // Una banda a 0 no se aplica; con ambas a 0 basta cualquier cambio de precio
+    public PublishFilter(double absoluteDeadband, double percentDeadband, long heartbeatMillis) {
+        this.absoluteDeadband = absoluteDeadband;
+        this.percentDeadband = percentDeadband;
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    // Decidir si se publica; si se acepta queda registrado como último precio publicado
+    public boolean accept(String symbol, double price, long now) {
+        return accept(symbol, price, Trend.NONE, now);
+    }
+
+    // Un cambio de tendencia se publica aunque el precio no haya salido de la banda muerta
+    public boolean accept(String symbol, double price, byte trend, long now) {
+        LastPublished state = last.computeIfAbsent(symbol, s -> new LastPublished());
+        synchronized (state) {
+            if (state.publishedAt != 0 && !moved(state.price, price) && trend == state.trend
+                    && now - state.publishedAt < heartbeatMillis) {
+                suppressed.increment();
+                return false;
+            }
+            state.price = price;
+            state.trend = trend;
+            state.publishedAt = now;
+        }
+        published.increment();
+        return true;
+    }
+
+    // Olvidar el último precio (p. ej. si la publicación falló) para no suprimir el siguiente
+    public void forget(String symbol) {
+        last.remove(symbol);
+    }
+
+    // Precio descartado por haber otro más reciente dentro de la misma ventana
+    public void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public String getStats() {
+        return String.format("publicados=%d, suprimidos=%d, agrupados=%d",
+                getPublishedCount(), getSuppressedCount(), getCoalescedCount());
+    }
+
+    private boolean moved(double previous, double price) {
+        double delta = Math.abs(price - previous);
+        return delta > 0
+                && (absoluteDeadband <= 0 || delta >= absoluteDeadband)
+                && (percentDeadband <= 0 || delta * 100 >= percentDeadband * Math.abs(previous));
+    }
+
+    private static class LastPublished {
+        double price;
+        byte trend = Trend.NONE;
+        long publishedAt;
+    }
+}
@@ -0,0 +1,94 @@
+package com.redes.alert;
+
+import com.redes.PriceListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Alertas de umbral calculadas en el sensor: un ThresholdIndex por símbolo con los
+// umbrales de todos los monitores que lo siguen. Cada precio se evalúa sólo contra el
+// índice de su símbolo; los cambios de configuración sólo tocan los de sus monedas.
+public class AlertEngine implements PriceListener {
+    public interface Sink {
+        void deliver(String monitorId, String symbol, boolean above, long threshold, long price, long timestamp);
+    }
+
+    private final double hysteresisPercent;
+    private final Sink sink;
+    private final ConcurrentHashMap<String, ThresholdIndex> indexes = new ConcurrentHashMap<>();
+    // Umbrales vigentes de cada monitor (símbolo -> umbrales), para saber qué quitar al cambiarlos
+    private final Map<String, Map<String, List<Long>>> monitors = new HashMap<>();
+
+    private final LongAdder alerts = new LongAdder();
+    private final LongAdder clears = new LongAdder();
+
+    public AlertEngine(double hysteresisPercent, Sink sink) {
+        this.hysteresisPercent = hysteresisPercent;
+        this.sink = sink;
+    }
+
+    // Sustituir los umbrales de un monitor (símbolo -> umbrales en punto fijo, uno por
+    // botón que muestre el símbolo)
+    public synchronized void setThresholds(String monitorId, Map<String, List<Long>> thresholds) {
+        Map<String, List<Long>> normalized = new HashMap<>();
+        thresholds.forEach((symbol, values) -> normalized
+                .computeIfAbsent(symbol.trim().toUpperCase(Locale.ROOT), s -> new ArrayList<>())
+                .addAll(values));
+
+        Map<String, List<Long>> previous = monitors.put(monitorId, normalized);
+        if (previous != null) {
+            for (String symbol : previous.keySet()) {
+                if (!normalized.containsKey(symbol)) {
+                    indexes.get(symbol).remove(monitorId);
+                }
+            }
+        }
+        normalized.forEach((symbol, values) ->
+                indexes.computeIfAbsent(symbol, s -> new ThresholdIndex(hysteresisPercent)).put(monitorId, values));
+    }
+
+    public synchronized void removeMonitor(String monitorId) {
+        Map<String, List<Long>> previous = monitors.remove(monitorId);
+        if (previous != null) {
+            previous.keySet().forEach(symbol -> indexes.get(symbol).remove(monitorId));
+        }
+    }
+
+    // Evaluar un precio nuevo del símbolo
+    @Override
+    public void onPrice(String symbol, long scaledPrice, long timestamp) {
+        ThresholdIndex index = indexes.get(symbol);
+        if (index == null) {
+            index = indexes.get(symbol.toUpperCase(Locale.ROOT));
+            if (index == null) {
+                return;
+            }
+        }
+        index.update(scaledPrice, timestamp, (monitorId, above, threshold, price, time) -> {
+            (above ? alerts : clears).increment();
+            sink.deliver(monitorId, symbol, above, threshold, price, time);
+        });
+    }
+
+    public synchronized int getMonitorCount() {
+        return monitors.size();
+    }
+
+    public int getSubscriptionCount() {
+        int count = 0;
+        for (ThresholdIndex index : indexes.values()) {
+            count += index.size();
+        }
+        return count;
+    }
+
+    public String getStats() {
+        return String.format("monitores=%d, umbrales=%d, alertas=%d, rearmes=%d",
+                getMonitorCount(), getSubscriptionCount(), alerts.sum(), clears.sum());
+    }
+}
@@ -0,0 +1,80 @@
+package com.redes.alert;
+
+import com.redes.MonitorConfigSubscriber;
+import com.redes.codec.FixedPoint;
+import com.redes.util.Loggers;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+// Conecta el AlertEngine con MQTT: recibe las configuraciones de los monitores del
+// MonitorConfigSubscriber y publica cada cruce en <id>/alerts con un mensaje de texto
+// compacto:
+//
+//   A;<símbolo>;<umbral>;<precio>;<hora en ms>   el precio ha pasado por encima del umbral
+//   C;<símbolo>;<umbral>;<precio>;<hora en ms>   el precio ha bajado del nivel de rearme
+public class AlertService implements MonitorConfigSubscriber.Listener {
+    private static final String ALERT_TOPIC_FORMAT = "%s/alerts";
+
+    private static final Logger logger = Loggers.getLogger(AlertService.class);
+
+    private final Mqtt3AsyncClient mqttClient;
+    private final AlertEngine engine;
+
+    public AlertService(Mqtt3AsyncClient mqttClient, double hysteresisPercent) {
+        this.mqttClient = mqttClient;
+        this.engine = new AlertEngine(hysteresisPercent, this::publishAlert);
+    }
+
+    public AlertEngine getEngine() {
+        return engine;
+    }
+
+    @Override
+    public void onConfiguration(String monitorId, Map<String, List<Long>> thresholds) {
+        engine.setThresholds(monitorId, thresholds);
+    }
+
+    @Override
+    public void onRemoved(String monitorId) {
+        engine.removeMonitor(monitorId);
+    }
+
+    private void publishAlert(String monitorId, String symbol, boolean above, long threshold, long price, long timestamp) {
+        byte[] payload = encode(symbol, above, threshold, price, timestamp);
+        mqttClient.publishWith()
+                .topic(String.format(ALERT_TOPIC_FORMAT, monitorId))
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .payload(payload)
+                .send()
+                .whenComplete((publish, error) -> {
+                    if (error != null) {
+                        logger.log(Level.WARNING, "No se pudo publicar la alerta de " + monitorId, error);
+                    } else {
+                        logger.log(Level.FINE, "Alerta para {0}: {1}",
+                                new Object[] { monitorId, new String(payload, US_ASCII) });
+                    }
+                });
+    }
+
+    static byte[] encode(String symbol, boolean above, long threshold, long price, long timestamp) {
+        ByteBuffer buffer = ByteBuffer.allocate(symbol.length() + 80);
+        buffer.put((byte) (above ? 'A' : 'C')).put((byte) ';');
+        buffer.put(symbol.getBytes(US_ASCII)).put((byte) ';');
+        FixedPoint.writeAscii(threshold, buffer);
+        buffer.put((byte) ';');
+        FixedPoint.writeAscii(price, buffer);
+        buffer.put((byte) ';');
+        FixedPoint.writeDigits(timestamp, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
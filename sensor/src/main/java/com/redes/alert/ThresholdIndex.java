@@ -0,0 +1,202 @@
+package com.redes.alert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Umbrales de un símbolo (los de cada monitor que lo sigue; uno por botón, así que un
+// monitor puede tener varios) ordenados de menor a mayor, para encontrar
+// con dos búsquedas binarias los que cruza cada precio nuevo en vez de recorrerlos todos.
+//
+// Un umbral salta cuando el precio pasa a estar por encima (precio > umbral, como en el
+// monitor) y no se rearma hasta que el precio baja del nivel de rearme, umbral menos la
+// histéresis; así un precio que oscila alrededor del umbral no genera una alerta por tick.
+//
+// Las altas y bajas sólo marcan el índice como desactualizado; los arreglos ordenados se
+// reconstruyen una vez en el siguiente precio, aunque lleguen miles de cambios seguidos.
+public class ThresholdIndex {
+    public interface Listener {
+        void onCross(String monitorId, boolean above, long threshold, long price, long timestamp);
+    }
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final double hysteresis;
+    private final Map<String, List<Entry>> entries = new HashMap<>();
+    private final List<Entry> fresh = new ArrayList<>();
+    private int count;
+
+    private Entry[] sorted = NO_ENTRIES;
+    private long[] thresholds = new long[0];
+    private long[] rearmLevels = new long[0];
+    private boolean dirty;
+    private long lastPrice = NO_PRICE;
+
+    // hysteresisPercent: cuánto tiene que bajar el precio, en % del umbral, para rearmarlo
+    public ThresholdIndex(double hysteresisPercent) {
+        this.hysteresis = hysteresisPercent / 100;
+    }
+
+    // Fijar los umbrales de un monitor (en punto fijo); sustituyen a los anteriores, y los
+    // que se repiten conservan su estado
+    public synchronized void put(String monitorId, List<Long> monitorThresholds) {
+        List<Entry> previous = entries.getOrDefault(monitorId, List.of());
+        List<Entry> unmatched = new ArrayList<>(previous);
+        List<Entry> current = new ArrayList<>(monitorThresholds.size());
+        for (long threshold : monitorThresholds) {
+            Entry entry = take(unmatched, threshold);
+            if (entry == null) {
+                entry = new Entry(monitorId, threshold, threshold - Math.round(threshold * hysteresis));
+                fresh.add(entry);
+                dirty = true;
+            }
+            current.add(entry);
+        }
+        for (Entry entry : unmatched) {
+            entry.removed = true;
+            dirty = true;
+        }
+        count += current.size() - previous.size();
+        if (current.isEmpty()) {
+            entries.remove(monitorId);
+        } else {
+            entries.put(monitorId, current);
+        }
+    }
+
+    public synchronized boolean remove(String monitorId) {
+        List<Entry> removed = entries.remove(monitorId);
+        if (removed == null) {
+            return false;
+        }
+        for (Entry entry : removed) {
+            entry.removed = true;
+        }
+        count -= removed.size();
+        dirty = true;
+        return true;
+    }
+
+    // Número de umbrales, contando todos los de cada monitor
+    public synchronized int size() {
+        return count;
+    }
+
+    // Evaluar un precio nuevo: O(log n) más los umbrales que realmente cambian de estado
+    public synchronized void update(long price, long timestamp, Listener listener) {
+        if (dirty) {
+            rebuild();
+        }
+
+        // Umbrales nuevos: se comparan con el precio actual, no con el cruce
+        for (Entry entry : fresh) {
+            if (!entry.removed && price > entry.threshold) {
+                entry.above = true;
+                listener.onCross(entry.monitorId, true, entry.threshold, price, timestamp);
+            }
+        }
+        fresh.clear();
+
+        long last = lastPrice;
+        lastPrice = price;
+        if (last == NO_PRICE || price > last) {
+            // Sube: saltan los umbrales en [anterior, actual)
+            int from = last == NO_PRICE ? 0 : lowerBound(thresholds, last);
+            int to = lowerBound(thresholds, price);
+            for (int i = from; i < to; i++) {
+                Entry entry = sorted[i];
+                if (!entry.above) {
+                    entry.above = true;
+                    listener.onCross(entry.monitorId, true, entry.threshold, price, timestamp);
+                }
+            }
+        } else if (price < last) {
+            // Baja: se rearman los umbrales cuyo nivel de rearme está en (actual, anterior]
+            int from = upperBound(rearmLevels, price);
+            int to = upperBound(rearmLevels, last);
+            for (int i = from; i < to; i++) {
+                Entry entry = sorted[i];
+                if (entry.above) {
+                    entry.above = false;
+                    listener.onCross(entry.monitorId, false, entry.threshold, price, timestamp);
+                }
+            }
+        }
+    }
+
+    private void rebuild() {
+        sorted = new Entry[count];
+        int i = 0;
+        for (List<Entry> monitorEntries : entries.values()) {
+            for (Entry entry : monitorEntries) {
+                sorted[i++] = entry;
+            }
+        }
+        Arrays.sort(sorted, Comparator.comparingLong(entry -> entry.threshold));
+        thresholds = new long[sorted.length];
+        rearmLevels = new long[sorted.length];
+        for (i = 0; i < sorted.length; i++) {
+            thresholds[i] = sorted[i].threshold;
+            rearmLevels[i] = sorted[i].rearmLevel;
+        }
+        dirty = false;
+    }
+
+    // Sacar de la lista una entrada con ese umbral, si la hay
+    private static Entry take(List<Entry> candidates, long threshold) {
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.get(i).threshold == threshold) {
+                return candidates.remove(i);
+            }
+        }
+        return null;
+    }
+
+    // Primer índice con valor >= key
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Primer índice con valor > key
+    private static int upperBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static class Entry {
+        final String monitorId;
+        final long threshold;
+        final long rearmLevel;
+        boolean above;
+        boolean removed;
+
+        Entry(String monitorId, long threshold, long rearmLevel) {
+            this.monitorId = monitorId;
+            this.threshold = threshold;
+            this.rearmLevel = rearmLevel;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.redes.analytics;
+
+import com.redes.codec.FixedPoint;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Estadísticas móviles por símbolo, actualizadas en O(1) con cada tick:
+//   - media móvil exponencial (EMA) con factor alpha
+//   - mínimo y máximo de los últimos `window` ticks (colas monótonas)
+//   - media y desviación típica de los últimos `window` ticks (sumas acumuladas)
+//   - tendencia con rebote: la EMA se compara con la media de la ventana; si se separa
+//     más de `threshold` desviaciones típicas hay subida o bajada, y el estado sólo
+//     cambia tras `debounce` ticks seguidos indicando lo mismo.
+//
+// Los datos van en arreglos primitivos indexados por símbolo (una posición por símbolo,
+// o `window` posiciones seguidas para las ventanas), así que un tick no crea objetos.
+// Los arreglos sólo se copian cuando aparece un símbolo nuevo.
+public class RollingStats {
+    private final int window;
+    private final double alpha;
+    private final double threshold;
+    private final int debounce;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private int capacity;
+
+    // Por símbolo
+    private double[] reference;   // primer precio; los valores se guardan restándolo para no perder precisión
+    private double[] ema;
+    private double[] sum;
+    private double[] sumSquares;
+    private long[] ticks;         // n.º de ticks recibidos; también numera las posiciones de la ventana
+    private byte[] trend;
+    private byte[] candidate;
+    private int[] candidateCount;
+
+    // Por símbolo y posición de la ventana: id * window + (n.º de tick % window)
+    private double[] values;
+    // Colas monótonas de números de tick (mínimo creciente, máximo decreciente)
+    private long[] minQueue;
+    private long[] maxQueue;
+    private int[] minHead;
+    private int[] minSize;
+    private int[] maxHead;
+    private int[] maxSize;
+
+    public RollingStats(int window, double alpha, double threshold, int debounce) {
+        if (window < 2) {
+            throw new IllegalArgumentException("La ventana debe tener al menos 2 ticks");
+        }
+        this.window = window;
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.debounce = Math.max(1, debounce);
+        allocate(16);
+    }
+
+    // Añadir un precio y devolver la tendencia resultante
+    public byte update(String symbol, long scaledPrice) {
+        Integer id = ids.get(symbol);
+        if (id == null) {
+            id = register(symbol);
+        }
+        return update(id, FixedPoint.toDouble(scaledPrice));
+    }
+
+    public synchronized double getEma(String symbol) {
+        int id = idOf(symbol);
+        return id < 0 || ticks[id] == 0 ? Double.NaN : ema[id] + reference[id];
+    }
+
+    public synchronized double getMin(String symbol) {
+        int id = idOf(symbol);
+        return id < 0 || minSize[id] == 0 ? Double.NaN : value(id, minQueue[id * window + minHead[id]]) + reference[id];
+    }
+
+    public synchronized double getMax(String symbol) {
+        int id = idOf(symbol);
+        return id < 0 || maxSize[id] == 0 ? Double.NaN : value(id, maxQueue[id * window + maxHead[id]]) + reference[id];
+    }
+
+    public synchronized double getMean(String symbol) {
+        int id = idOf(symbol);
+        return id < 0 || ticks[id] == 0 ? Double.NaN : sum[id] / count(id) + reference[id];
+    }
+
+    public synchronized double getStdDev(String symbol) {
+        int id = idOf(symbol);
+        return id < 0 || ticks[id] == 0 ? Double.NaN : stdDev(id);
+    }
+
+    public synchronized byte getTrend(String symbol) {
+        int id = idOf(symbol);
+        return id < 0 ? Trend.NONE : trend[id];
+    }
+
+    private synchronized byte update(int id, double price) {
+        long n = ticks[id];
+        if (n == 0) {
+            reference[id] = price;
+            ema[id] = 0;
+        }
+        double x = price - reference[id];
+        int slot = id * window + (int) (n % window);
+
+        // Ventana: sale el valor más antiguo si está llena
+        if (n >= window) {
+            double old = values[slot];
+            sum[id] -= old;
+            sumSquares[id] -= old * old;
+        }
+        values[slot] = x;
+        sum[id] += x;
+        sumSquares[id] += x * x;
+        ticks[id] = n + 1;
+
+        // Recalcular las sumas una vez por vuelta para que no acumulen error de redondeo
+        if ((n + 1) % window == 0) {
+            recomputeSums(id);
+        }
+
+        pushMin(id, n, x);
+        pushMax(id, n, x);
+
+        ema[id] = n == 0 ? x : ema[id] + alpha * (x - ema[id]);
+        return updateTrend(id);
+    }
+
+    private byte updateTrend(int id) {
+        if (ticks[id] < 2) {
+            return trend[id];
+        }
+        double deviation = ema[id] - sum[id] / count(id);
+        double band = threshold * stdDev(id);
+        byte raw = deviation > band && deviation > 0 ? Trend.UP
+                : deviation < -band && deviation < 0 ? Trend.DOWN
+                : Trend.FLAT;
+
+        if (raw == trend[id]) {
+            candidateCount[id] = 0;
+        } else if (raw == candidate[id] && candidateCount[id] > 0) {
+            if (++candidateCount[id] >= debounce) {
+                trend[id] = raw;
+                candidateCount[id] = 0;
+            }
+        } else {
+            candidate[id] = raw;
+            candidateCount[id] = 1;
+            if (debounce == 1) {
+                trend[id] = raw;
+                candidateCount[id] = 0;
+            }
+        }
+        return trend[id];
+    }
+
+    // Cola del mínimo: quitar por detrás los que ya no pueden ser mínimo y por delante los caducados
+    private void pushMin(int id, long n, double x) {
+        int base = id * window;
+        while (minSize[id] > 0 && value(id, minQueue[base + (minHead[id] + minSize[id] - 1) % window]) >= x) {
+            minSize[id]--;
+        }
+        minQueue[base + (minHead[id] + minSize[id]) % window] = n;
+        minSize[id]++;
+        while (minQueue[base + minHead[id]] <= n - window) {
+            minHead[id] = (minHead[id] + 1) % window;
+            minSize[id]--;
+        }
+    }
+
+    private void pushMax(int id, long n, double x) {
+        int base = id * window;
+        while (maxSize[id] > 0 && value(id, maxQueue[base + (maxHead[id] + maxSize[id] - 1) % window]) <= x) {
+            maxSize[id]--;
+        }
+        maxQueue[base + (maxHead[id] + maxSize[id]) % window] = n;
+        maxSize[id]++;
+        while (maxQueue[base + maxHead[id]] <= n - window) {
+            maxHead[id] = (maxHead[id] + 1) % window;
+            maxSize[id]--;
+        }
+    }
+
+    private double value(int id, long tick) {
+        return values[id * window + (int) (tick % window)];
+    }
+
+    private int count(int id) {
+        return (int) Math.min(ticks[id], window);
+    }
+
+    private double stdDev(int id) {
+        int count = count(id);
+        double mean = sum[id] / count;
+        return Math.sqrt(Math.max(0, sumSquares[id] / count - mean * mean));
+    }
+
+    private void recomputeSums(int id) {
+        double s = 0;
+        double squares = 0;
+        for (int i = id * window; i < (id + 1) * window; i++) {
+            s += values[i];
+            squares += values[i] * values[i];
+        }
+        sum[id] = s;
+        sumSquares[id] = squares;
+    }
+
+    private int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    private synchronized int register(String symbol) {
+        Integer existing = ids.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int id = ids.size();
+        if (id == capacity) {
+            allocate(capacity * 2);
+        }
+        ids.put(symbol, id);
+        return id;
+    }
+
+    private void allocate(int newCapacity) {
+        reference = grow(reference, newCapacity);
+        ema = grow(ema, newCapacity);
+        sum = grow(sum, newCapacity);
+        sumSquares = grow(sumSquares, newCapacity);
+        ticks = ticks == null ? new long[newCapacity] : Arrays.copyOf(ticks, newCapacity);
+        trend = trend == null ? new byte[newCapacity] : Arrays.copyOf(trend, newCapacity);
+        candidate = candidate == null ? new byte[newCapacity] : Arrays.copyOf(candidate, newCapacity);
+        candidateCount = candidateCount == null ? new int[newCapacity] : Arrays.copyOf(candidateCount, newCapacity);
+        minHead = minHead == null ? new int[newCapacity] : Arrays.copyOf(minHead, newCapacity);
+        minSize = minSize == null ? new int[newCapacity] : Arrays.copyOf(minSize, newCapacity);
+        maxHead = maxHead == null ? new int[newCapacity] : Arrays.copyOf(maxHead, newCapacity);
+        maxSize = maxSize == null ? new int[newCapacity] : Arrays.copyOf(maxSize, newCapacity);
+        values = grow(values, newCapacity * window);
+        minQueue = minQueue == null ? new long[newCapacity * window] : Arrays.copyOf(minQueue, newCapacity * window);
+        maxQueue = maxQueue == null ? new long[newCapacity * window] : Arrays.copyOf(maxQueue, newCapacity * window);
+        capacity = newCapacity;
+    }
+
+    private static double[] grow(double[] array, int length) {
+        return array == null ? new double[length] : Arrays.copyOf(array, length);
+    }
+}
@@ -0,0 +1,26 @@
+package com.redes.analytics;
+
+// Tendencia de un símbolo tal como se publica con cada precio
+public final class Trend {
+    public static final byte DOWN = -1;
+    public static final byte FLAT = 0;
+    public static final byte UP = 1;
+    // Sin análisis: el mensaje sale sin tendencia
+    public static final byte NONE = Byte.MIN_VALUE;
+
+    private Trend() {
+    }
+
+    public static String name(byte trend) {
+        switch (trend) {
+            case UP:
+                return "up";
+            case DOWN:
+                return "down";
+            case FLAT:
+                return "flat";
+            default:
+                return "none";
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.redes.cluster;
+
+import com.redes.util.Loggers;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+
+import java.net.InetAddress;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Modo clúster: varios sensores se reparten los símbolos a través del bróker.
+// Cada nodo publica un latido retenido en <topic>/<nodo> cada `heartbeatMillis` ms
+// (H1;<hora en ms>) y escucha los de los demás en <topic>/+. Un nodo deja el clúster
+// cuando borra su latido (mensaje retenido vacío, también como last will si se cae la
+// conexión) o cuando pasan `timeoutMillis` ms sin recibir ninguno suyo.
+//
+// Con la lista de nodos vivos cada sensor construye el mismo HashRing y se queda con
+// los símbolos que le tocan; cuando la lista cambia, el listener recibe el nuevo reparto.
+// Sin conexión con el bróker los demás nodos caducan y el nodo pasa a obtener todos los
+// símbolos, mejor duplicado que sin precio.
+public class ClusterMembership {
+    public static final String DEFAULT_TOPIC = "criptomonitor/sensors";
+    private static final String HEARTBEAT_FORMAT = "H1";
+
+    public interface Listener {
+        void onAssignment(Set<String> owned, int nodes);
+    }
+
+    private static final Logger logger = Loggers.getLogger(ClusterMembership.class);
+
+    private final Mqtt3AsyncClient mqttClient;
+    private final String topic;
+    private final String nodeId;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final int replicas;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cluster");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Otros nodos vivos -> hora local (ms) de su último latido
+    private final Map<String, Long> lastSeen = new HashMap<>();
+    private Set<String> symbols;
+    private Set<String> owned = Set.of();
+    private int nodes;
+
+    public ClusterMembership(Mqtt3AsyncClient mqttClient, String topic, String nodeId, Collection<String> symbols,
+            long heartbeatMillis, long timeoutMillis, int replicas, Listener listener) {
+        if (nodeId.isEmpty() || nodeId.contains("/") || nodeId.contains("+") || nodeId.contains("#")) {
+            throw new IllegalArgumentException("Identificador de nodo no válido: " + nodeId);
+        }
+        this.mqttClient = mqttClient;
+        this.topic = topic;
+        this.nodeId = nodeId;
+        this.symbols = Set.copyOf(symbols);
+        this.heartbeatMillis = heartbeatMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.replicas = replicas;
+        this.listener = listener;
+    }
+
+    // Identificador por defecto: equipo y proceso, distinto para cada instancia
+    public static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "sensor";
+        }
+        return (host + "-" + ProcessHandle.current().pid()).replaceAll("[/+#]", "_");
+    }
+
+    public static String heartbeatTopic(String topic, String nodeId) {
+        return topic + "/" + nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Empezar solo con todos los símbolos y ajustar el reparto según lleguen latidos
+    public CompletableFuture<Void> start() {
+        rebalance();
+        scheduler.scheduleAtFixedRate(this::heartbeat, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::expire, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        return mqttClient.subscribeWith()
+                .topicFilter(topic + "/+")
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .callback(this::onHeartbeat)
+                .send()
+                .thenAccept(subAck -> logger.log(Level.INFO, "Clúster: nodo {0} suscrito a {1}/+",
+                        new Object[] { nodeId, topic }));
+    }
+
+    // Salir del clúster borrando el latido retenido, para que los demás reciban los símbolos ya
+    public void stop() {
+        scheduler.shutdownNow();
+        if (!mqttClient.getState().isConnected()) {
+            return;
+        }
+        try {
+            mqttClient.publishWith()
+                    .topic(heartbeatTopic(topic, nodeId))
+                    .qos(MqttQos.AT_LEAST_ONCE)
+                    .retain(true)
+                    .send()
+                    .get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "No se pudo borrar el latido de " + nodeId, e);
+        }
+    }
+
+    // Sustituir el conjunto total de símbolos a repartir
+    public synchronized void setSymbols(Collection<String> symbols) {
+        this.symbols = Set.copyOf(symbols);
+        rebalance();
+    }
+
+    public synchronized Set<String> getOwnedSymbols() {
+        return owned;
+    }
+
+    public synchronized List<String> getMembers() {
+        Set<String> members = new TreeSet<>(lastSeen.keySet());
+        members.add(nodeId);
+        return List.copyOf(members);
+    }
+
+    public synchronized String getStats() {
+        return String.format("nodo=%s, nodos=%d, símbolos propios=%d de %d", nodeId, nodes, owned.size(), symbols.size());
+    }
+
+    private void heartbeat() {
+        if (!mqttClient.getState().isConnected()) {
+            return;
+        }
+        mqttClient.publishWith()
+                .topic(heartbeatTopic(topic, nodeId))
+                .qos(MqttQos.AT_LEAST_ONCE)
+                .retain(true)
+                .payload((HEARTBEAT_FORMAT + ";" + System.currentTimeMillis()).getBytes(UTF_8))
+                .send()
+                .whenComplete((publish, error) -> {
+                    if (error != null) {
+                        logger.log(Level.FINE, "No se pudo publicar el latido: {0}", error.getMessage());
+                    }
+                });
+    }
+
+    private void onHeartbeat(Mqtt3Publish publish) {
+        String name = publish.getTopic().toString();
+        String node = name.substring(name.lastIndexOf('/') + 1);
+        if (node.equals(nodeId)) {
+            return;
+        }
+        String text = new String(publish.getPayloadAsBytes(), UTF_8);
+        synchronized (this) {
+            if (text.isEmpty()) {
+                if (lastSeen.remove(node) != null) {
+                    logger.log(Level.INFO, "Clúster: el nodo {0} ha salido", node);
+                    rebalance();
+                }
+                return;
+            }
+            if (!text.startsWith(HEARTBEAT_FORMAT + ";")) {
+                logger.log(Level.WARNING, "Latido no reconocido en {0}: {1}", new Object[] { name, text });
+                return;
+            }
+            // Se usa la hora local de llegada: los relojes de los nodos pueden no coincidir
+            if (lastSeen.put(node, System.currentTimeMillis()) == null) {
+                logger.log(Level.INFO, "Clúster: el nodo {0} ha entrado", node);
+                rebalance();
+            }
+        }
+    }
+
+    // Dar por muertos los nodos sin latido reciente
+    private synchronized void expire() {
+        long now = System.currentTimeMillis();
+        boolean changed = lastSeen.entrySet().removeIf(entry -> {
+            if (now - entry.getValue() > timeoutMillis) {
+                logger.log(Level.WARNING, "Clúster: el nodo {0} no responde; se reparten sus símbolos", entry.getKey());
+                return true;
+            }
+            return false;
+        });
+        if (changed) {
+            rebalance();
+        }
+    }
+
+    private synchronized void rebalance() {
+        Set<String> members = new HashSet<>(lastSeen.keySet());
+        members.add(nodeId);
+        HashRing ring = new HashRing(members, replicas);
+
+        Set<String> assigned = new TreeSet<>();
+        for (String symbol : symbols) {
+            if (nodeId.equals(ring.ownerOf(symbol))) {
+                assigned.add(symbol);
+            }
+        }
+        nodes = members.size();
+        if (assigned.equals(owned)) {
+            return;
+        }
+
+        int gained = 0;
+        for (String symbol : assigned) {
+            if (!owned.contains(symbol)) {
+                gained++;
+            }
+        }
+        int lost = owned.size() - (assigned.size() - gained);
+        owned = Set.copyOf(assigned);
+        logger.log(Level.INFO, "Clúster: {0} nodos; este nodo obtiene {1} de {2} símbolos (+{3}, -{4})",
+                new Object[] { nodes, owned.size(), symbols.size(), gained, lost });
+        listener.onAssignment(owned, nodes);
+    }
+}
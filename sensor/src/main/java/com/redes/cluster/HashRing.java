@@ -0,0 +1,86 @@
+package com.redes.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+// Anillo de hash consistente: cada nodo ocupa `replicas` puntos del anillo (nodos
+// virtuales) y cada símbolo pertenece al primer nodo que aparece a partir de su hash.
+// Al entrar o salir un nodo sólo cambian de dueño los símbolos de los tramos que
+// gana o pierde, aproximadamente 1/n del total.
+//
+// El hash no depende de la JVM (FNV-1a de 64 bits con mezcla final), así que todos
+// los sensores calculan el mismo reparto a partir de la misma lista de nodos.
+public class HashRing {
+    private final String[] nodes;
+    private final long[] points;
+    private final int[] owners;
+
+    public HashRing(Collection<String> nodeIds, int replicas) {
+        this.nodes = new TreeSet<>(nodeIds).toArray(new String[0]);
+        int size = nodes.length * replicas;
+        long[] hashes = new long[size];
+        int[] indexes = new int[size];
+        for (int node = 0; node < nodes.length; node++) {
+            for (int replica = 0; replica < replicas; replica++) {
+                hashes[node * replicas + replica] = hash(nodes[node] + "#" + replica);
+                indexes[node * replicas + replica] = node;
+            }
+        }
+
+        // Ordenar los puntos arrastrando su nodo
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b]
+                ? Long.compareUnsigned(hashes[a], hashes[b])
+                : nodes[indexes[a]].compareTo(nodes[indexes[b]]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = indexes[order[i]];
+        }
+    }
+
+    // Nodo dueño del símbolo, o null si el anillo está vacío
+    public String ownerOf(String symbol) {
+        if (points.length == 0) {
+            return null;
+        }
+        long key = hash(symbol);
+        // Primer punto >= key (en orden sin signo); si no hay, se da la vuelta al anillo
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return nodes[owners[low == points.length ? 0 : low]];
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        // Mezcla final (fmix64 de MurmurHash3): FNV reparte mal las cadenas parecidas
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
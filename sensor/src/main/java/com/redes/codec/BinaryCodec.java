@@ -0,0 +1,60 @@
+package com.redes.codec;
+
+import com.redes.analytics.Trend;
+
+import java.nio.ByteBuffer;
+
+// Formato binario compacto para suscriptores con pocos recursos:
+//
+//   byte 0       0x01 (versión del formato)
+//   byte 1       longitud n del símbolo
+//   bytes 2..n+1 símbolo en ASCII
+//   8 bytes      precio en punto fijo (8 decimales), big-endian
+//   1-10 bytes   hora en milisegundos como varint sin signo (LEB128)
+//
+// Con tendencia el primer byte es 0x02 y va un byte más, con signo, entre el precio y
+// la hora (1 sube, 0 estable, -1 baja); el precio sigue en la misma posición.
+//
+// Un mensaje de BTCUSDT ocupa unos 23 bytes frente a los ~70 del JSON.
+public class BinaryCodec implements PayloadCodec {
+    public static final String NAME = "binary";
+    public static final BinaryCodec INSTANCE = new BinaryCodec();
+
+    public static final byte VERSION = 0x01;
+    public static final byte VERSION_WITH_TREND = 0x02;
+
+    private BinaryCodec() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int maxSize(int symbolLength) {
+        return 2 + symbolLength + 8 + 1 + 10;
+    }
+
+    @Override
+    public void encode(String symbol, long scaledPrice, long timestamp, byte trend, ByteBuffer out) {
+        out.put(trend == Trend.NONE ? VERSION : VERSION_WITH_TREND);
+        out.put((byte) symbol.length());
+        for (int i = 0; i < symbol.length(); i++) {
+            out.put((byte) symbol.charAt(i));
+        }
+        out.putLong(scaledPrice);
+        if (trend != Trend.NONE) {
+            out.put(trend);
+        }
+        writeVarint(timestamp, out);
+    }
+
+    static void writeVarint(long value, ByteBuffer out) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+}
@@ -0,0 +1,49 @@
+package com.redes.codec;
+
+import java.nio.ByteBuffer;
+
+// Precios en punto fijo: un long con 8 decimales implícitos, la misma precisión que usa Binance
+public class FixedPoint {
+    public static final int DECIMALS = 8;
+    public static final long SCALE = 100_000_000L;
+
+    private FixedPoint() {
+    }
+
+    public static long fromDouble(double price) {
+        return Math.round(price * SCALE);
+    }
+
+    public static double toDouble(long scaled) {
+        return (double) scaled / SCALE;
+    }
+
+    // Escribir el precio en ASCII con sus 8 decimales, p. ej. 43000.12000000
+    public static void writeAscii(long scaled, ByteBuffer out) {
+        if (scaled < 0) {
+            out.put((byte) '-');
+            scaled = -scaled;
+        }
+        writeDigits(scaled / SCALE, out);
+        out.put((byte) '.');
+        long fraction = scaled % SCALE;
+        for (long divisor = SCALE / 10; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + (fraction / divisor) % 10));
+        }
+    }
+
+    // Escribir un entero no negativo en ASCII
+    public static void writeDigits(long value, ByteBuffer out) {
+        if (value == 0) {
+            out.put((byte) '0');
+            return;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+}
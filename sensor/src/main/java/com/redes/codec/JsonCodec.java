@@ -0,0 +1,57 @@
+package com.redes.codec;
+
+import com.redes.analytics.Trend;
+
+import java.nio.ByteBuffer;
+
+// {"symbol":"BTCUSDT","price":43000.12000000,"timestamp":1700000000000}
+// Con análisis activado se añade la tendencia (1 sube, 0 estable, -1 baja):
+// {"symbol":"BTCUSDT","price":43000.12000000,"timestamp":1700000000000,"trend":1}
+public class JsonCodec implements PayloadCodec {
+    public static final String NAME = "json";
+    public static final JsonCodec INSTANCE = new JsonCodec();
+
+    private static final byte[] SYMBOL = ascii("{\"symbol\":\"");
+    private static final byte[] PRICE = ascii("\",\"price\":");
+    private static final byte[] TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] TREND = ascii(",\"trend\":");
+
+    private JsonCodec() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int maxSize(int symbolLength) {
+        // Textos fijos + símbolo + precio (hasta 20 dígitos, signo y punto) + hora (hasta 19 dígitos)
+        // + tendencia (hasta 2 caracteres) + '}'
+        return SYMBOL.length + symbolLength + PRICE.length + 22 + TIMESTAMP.length + 19 + TREND.length + 2 + 1;
+    }
+
+    @Override
+    public void encode(String symbol, long scaledPrice, long timestamp, byte trend, ByteBuffer out) {
+        out.put(SYMBOL);
+        for (int i = 0; i < symbol.length(); i++) {
+            out.put((byte) symbol.charAt(i));
+        }
+        out.put(PRICE);
+        FixedPoint.writeAscii(scaledPrice, out);
+        out.put(TIMESTAMP);
+        FixedPoint.writeDigits(timestamp, out);
+        if (trend != Trend.NONE) {
+            out.put(TREND);
+            if (trend < 0) {
+                out.put((byte) '-');
+            }
+            out.put((byte) ('0' + Math.abs(trend)));
+        }
+        out.put((byte) '}');
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+    }
+}
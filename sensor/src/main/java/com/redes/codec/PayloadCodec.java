@@ -0,0 +1,34 @@
+package com.redes.codec;
+
+import com.redes.analytics.Trend;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+// Formato del mensaje de precio publicado en MQTT.
+// El precio llega en punto fijo (ver FixedPoint) y se escribe en el buffer que
+// reciba, sin crear objetos intermedios.
+public interface PayloadCodec {
+    String getName();
+
+    // Tamaño máximo del mensaje para un símbolo de la longitud dada
+    int maxSize(int symbolLength);
+
+    // trend: tendencia del símbolo (ver Trend); con Trend.NONE el mensaje sale sin ella
+    void encode(String symbol, long scaledPrice, long timestamp, byte trend, ByteBuffer out);
+
+    default void encode(String symbol, long scaledPrice, long timestamp, ByteBuffer out) {
+        encode(symbol, scaledPrice, timestamp, Trend.NONE, out);
+    }
+
+    static PayloadCodec forName(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case JsonCodec.NAME:
+                return JsonCodec.INSTANCE;
+            case BinaryCodec.NAME:
+                return BinaryCodec.INSTANCE;
+            default:
+                throw new IllegalArgumentException("Formato de mensaje desconocido: " + name);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.redes.demand;
+
+import com.redes.MonitorConfigSubscriber;
+import com.redes.util.Loggers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+// Símbolos que hay que obtener según lo que muestran los monitores: cada configuración
+// recibida suma una referencia a sus símbolos y resta las de los que ha dejado. Un
+// símbolo sin referencias no se deja al momento, sino cuando pasan `idleMillis` ms sin
+// que nadie lo vuelva a pedir (un monitor que cambia de moneda y vuelve no lo corta).
+// Los símbolos fijos (`symbols` de la configuración) están siempre activos.
+//
+// Cada vez que cambia el conjunto activo el listener recibe el conjunto completo.
+//
+// Un símbolo mal escrito en un monitor (BTCUSTD) no debe llegar a la petición por lotes:
+// los que el validador no acepta se ignoran, y los que Binance rechace después se
+// retiran con reject() aunque algún monitor los siga mostrando.
+public class SymbolDemand implements MonitorConfigSubscriber.Listener {
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9]{2,20}");
+
+    public interface Listener {
+        void onActiveSymbols(Set<String> symbols);
+    }
+
+    private static final Logger logger = Loggers.getLogger(SymbolDemand.class);
+
+    private final Set<String> pinned;
+    private final long idleMillis;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "demanda");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Símbolos de cada monitor
+    private final Map<String, Set<String>> monitors = new HashMap<>();
+    // Símbolo -> n.º de monitores que lo muestran
+    private final Map<String, Integer> references = new HashMap<>();
+    // Símbolos sin referencias -> hora (ms) en que perdieron la última
+    private final Map<String, Long> released = new HashMap<>();
+    // Símbolos descartados por no ser válidos
+    private final Set<String> rejected = new TreeSet<>();
+    private Predicate<String> validator = symbol -> true;
+    private Set<String> active;
+    private long evicted;
+
+    public SymbolDemand(Collection<String> pinned, long idleMillis, Listener listener) {
+        this.pinned = normalize(pinned);
+        this.idleMillis = idleMillis;
+        this.listener = listener;
+        this.active = Set.copyOf(this.pinned);
+    }
+
+    public void start() {
+        long period = Math.max(1000, idleMillis / 4);
+        scheduler.scheduleWithFixedDelay(() -> evictIdle(System.currentTimeMillis()), period, period,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    // Comprobación de los símbolos que piden los monitores (p. ej. que Binance no los haya rechazado)
+    public synchronized void setValidator(Predicate<String> validator) {
+        this.validator = validator;
+    }
+
+    // Binance ha rechazado el símbolo: dejar de obtenerlo. Se aplica en el hilo de la
+    // demanda, no en el de quien lo avisa
+    public void reject(String symbol) {
+        try {
+            scheduler.execute(() -> remove(symbol.trim().toUpperCase(Locale.ROOT)));
+        } catch (RejectedExecutionException ignore) {
+            // Detenida
+        }
+    }
+
+    @Override
+    public void onConfiguration(String monitorId, Map<String, List<Long>> thresholds) {
+        update(monitorId, normalize(thresholds.keySet()));
+    }
+
+    @Override
+    public void onRemoved(String monitorId) {
+        update(monitorId, Set.of());
+    }
+
+    public synchronized Set<String> getActiveSymbols() {
+        return active;
+    }
+
+    public synchronized String getStats() {
+        return String.format("activos=%d, monitores=%d, sin referencias=%d, retirados=%d, no válidos=%d",
+                active.size(), monitors.size(), released.size(), evicted, rejected.size());
+    }
+
+    private synchronized void update(String monitorId, Set<String> symbols) {
+        for (Iterator<String> it = symbols.iterator(); it.hasNext(); ) {
+            String symbol = it.next();
+            if (validator.test(symbol)) {
+                rejected.remove(symbol);
+            } else {
+                it.remove();
+                if (rejected.add(symbol)) {
+                    logger.log(Level.WARNING, "El monitor {0} muestra un símbolo no válido: {1}",
+                            new Object[] { monitorId, symbol });
+                }
+            }
+        }
+        Set<String> previous = symbols.isEmpty() ? monitors.remove(monitorId) : monitors.put(monitorId, symbols);
+        if (previous == null) {
+            previous = Set.of();
+        }
+        long now = System.currentTimeMillis();
+        for (String symbol : symbols) {
+            if (!previous.contains(symbol)) {
+                references.merge(symbol, 1, Integer::sum);
+                released.remove(symbol);
+            }
+        }
+        for (String symbol : previous) {
+            if (!symbols.contains(symbol) && references.merge(symbol, -1, Integer::sum) <= 0) {
+                references.remove(symbol);
+                if (!pinned.contains(symbol)) {
+                    released.put(symbol, now);
+                }
+            }
+        }
+        publishIfChanged();
+    }
+
+    // Retirar los símbolos que llevan más de idleMillis sin referencias
+    synchronized void evictIdle(long now) {
+        Iterator<Map.Entry<String, Long>> it = released.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (now - entry.getValue() >= idleMillis) {
+                it.remove();
+                evicted++;
+                logger.log(Level.INFO, "Ningún monitor muestra {0}; se deja de obtener", entry.getKey());
+            }
+        }
+        publishIfChanged();
+    }
+
+    synchronized void remove(String symbol) {
+        if (!rejected.add(symbol)) {
+            return;
+        }
+        for (Set<String> symbols : monitors.values()) {
+            symbols.remove(symbol);
+        }
+        monitors.values().removeIf(Set::isEmpty);
+        references.remove(symbol);
+        released.remove(symbol);
+        pinned.remove(symbol);
+        logger.log(Level.WARNING, "Binance no reconoce {0}; se deja de obtener", symbol);
+        publishIfChanged();
+    }
+
+    private void publishIfChanged() {
+        Set<String> current = new TreeSet<>(pinned);
+        current.addAll(references.keySet());
+        current.addAll(released.keySet());
+        if (current.equals(active)) {
+            return;
+        }
+        active = Set.copyOf(current);
+        logger.log(Level.INFO, "Símbolos activos ({0}): {1}", new Object[] { active.size(), current });
+        listener.onActiveSymbols(active);
+    }
+
+    private static Set<String> normalize(Collection<String> symbols) {
+        Set<String> result = new TreeSet<>();
+        for (String symbol : symbols) {
+            String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+            if (SYMBOL.matcher(normalized).matches()) {
+                result.add(normalized);
+            } else if (!normalized.isEmpty()) {
+                logger.log(Level.WARNING, "Símbolo no válido en la configuración de un monitor: {0}", symbol);
+            }
+        }
+        return result;
+    }
+}
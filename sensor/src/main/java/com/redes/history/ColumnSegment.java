@@ -0,0 +1,167 @@
+package com.redes.history;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Archivo de columnas de longs de ancho fijo, mapeado en memoria y sólo de añadir.
+// Cada columna ocupa `capacity` posiciones seguidas, así que recorrer una columna es
+// leer memoria contigua. Cuando se llena se copia a un archivo del doble de capacidad.
+//
+// Formato (big endian):
+//   int magic, int versión, int n.º de columnas, int capacidad, int n.º de filas,
+//   12 bytes libres, y después las columnas una tras otra.
+//
+// El número de filas se escribe después de los datos de la fila, de modo que quien lea
+// el archivo (incluso tras una caída) nunca ve una fila a medias.
+class ColumnSegment implements AutoCloseable {
+    private static final int MAGIC = 0x434D5449; // "CMTI"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32;
+    private static final int COUNT_OFFSET = 16;
+
+    private final Path path;
+    private final int columns;
+    private final boolean writable;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private volatile int count;
+
+    private ColumnSegment(Path path, int columns, boolean writable, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.columns = columns;
+        this.writable = writable;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                || buffer.getInt(8) != columns) {
+            throw new IOException("Segmento con formato desconocido: " + path);
+        }
+        this.capacity = buffer.getInt(12);
+        this.count = buffer.getInt(COUNT_OFFSET);
+        if (capacity <= 0 || count < 0 || count > capacity || HEADER + 8L * columns * capacity > buffer.limit()) {
+            throw new IOException("Segmento truncado: " + path);
+        }
+    }
+
+    // Abrir para añadir, creando el archivo si no existe
+    static ColumnSegment openForAppend(Path path, int columns, int initialCapacity) throws IOException {
+        if (!Files.exists(path)) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            create(path, columns, initialCapacity);
+        }
+        return new ColumnSegment(path, columns, true, map(path, FileChannel.MapMode.READ_WRITE));
+    }
+
+    // Abrir sólo para leer; null si no existe
+    static ColumnSegment openForRead(Path path, int columns) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return new ColumnSegment(path, columns, false, map(path, FileChannel.MapMode.READ_ONLY));
+    }
+
+    int count() {
+        return count;
+    }
+
+    long get(int column, int row) {
+        return buffer.getLong(offset(column, row));
+    }
+
+    void set(int column, int row, long value) {
+        buffer.putLong(offset(column, row), value);
+    }
+
+    // El tamaño total nunca pasa de Integer.MAX_VALUE (ver grow), así que cabe en un int
+    private int offset(int column, int row) {
+        return HEADER + 8 * (column * capacity + row);
+    }
+
+    // Añadir una fila (un valor por columna) y devolver su índice
+    int append(long... values) throws IOException {
+        if (count == capacity) {
+            grow();
+        }
+        int row = count;
+        for (int column = 0; column < columns; column++) {
+            set(column, row, values[column]);
+        }
+        buffer.putInt(COUNT_OFFSET, row + 1);
+        count = row + 1;
+        return row;
+    }
+
+    // Primera fila cuyo valor en la columna (ordenada) es >= key
+    int lowerBound(int column, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(column, mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    void force() {
+        if (writable) {
+            buffer.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+
+    // Copiar a un archivo con el doble de filas y sustituir el actual de forma atómica
+    private void grow() throws IOException {
+        int newCapacity = Math.multiplyExact(capacity, 2);
+        if (HEADER + 8L * columns * newCapacity > Integer.MAX_VALUE) {
+            throw new IOException("Segmento lleno: " + path);
+        }
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "segment", ".tmp");
+        try {
+            create(temp, columns, newCapacity);
+            MappedByteBuffer grown = map(temp, FileChannel.MapMode.READ_WRITE);
+            for (int column = 0; column < columns; column++) {
+                for (int row = 0; row < count; row++) {
+                    grown.putLong(HEADER + 8 * (column * newCapacity + row), get(column, row));
+                }
+            }
+            grown.putInt(COUNT_OFFSET, count);
+            grown.force();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            buffer = grown;
+            capacity = newCapacity;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void create(Path path, int columns, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // El archivo queda disperso: las columnas no ocupan disco hasta que se escriben
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + 8L * columns * capacity);
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, columns).putInt(12, capacity).putInt(COUNT_OFFSET, 0);
+            header.force();
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] { StandardOpenOption.READ }
+                : new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.redes.history;
+
+import com.redes.PriceListener;
+import com.redes.util.Loggers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+// Histórico de precios en disco: por cada símbolo y día (UTC) un segmento de ticks con
+// las columnas hora y precio en punto fijo, y un segmento de velas OHLC por resolución
+// (1 s, 1 min, 1 h) que se actualiza con cada tick. Todo va en archivos mapeados en
+// memoria, así que el histórico no ocupa heap; las consultas recorren los archivos y
+// entregan los valores como primitivos, sin crear objetos por fila.
+//
+//   <dir>/<SÍMBOLO>/<aaaa-mm-dd>.ticks   hora, precio
+//   <dir>/<SÍMBOLO>/<aaaa-mm-dd>.1s      inicio, apertura, máximo, mínimo, cierre, n.º de ticks
+//   <dir>/<SÍMBOLO>/<aaaa-mm-dd>.1m      ...
+//   <dir>/<SÍMBOLO>/<aaaa-mm-dd>.1h      ...
+//
+// Los ticks de cada símbolo se guardan en orden de hora; uno más antiguo que el último
+// guardado se descarta.
+//
+// onPrice se llama desde el hilo que publica, así que no escribe: deja el tick en una cola
+// acotada que vacía el hilo "historico" (crecimiento de segmentos y cambio de día
+// incluidos). Con la cola llena el tick se descarta y se cuenta, sin bloquear al que publica.
+public class TickStore implements PriceListener, AutoCloseable {
+    public enum Resolution {
+        SECOND(1000L, "1s"),
+        MINUTE(60_000L, "1m"),
+        HOUR(3_600_000L, "1h");
+
+        final long millis;
+        final String extension;
+
+        Resolution(long millis, String extension) {
+            this.millis = millis;
+            this.extension = extension;
+        }
+    }
+
+    public interface TickVisitor {
+        void visit(long timestamp, long scaledPrice);
+    }
+
+    public interface CandleVisitor {
+        void visit(long start, long open, long high, long low, long close, long ticks);
+    }
+
+    static final int TICK_TIME = 0;
+    static final int TICK_PRICE = 1;
+    static final int TICK_COLUMNS = 2;
+
+    static final int CANDLE_START = 0;
+    static final int CANDLE_OPEN = 1;
+    static final int CANDLE_HIGH = 2;
+    static final int CANDLE_LOW = 3;
+    static final int CANDLE_CLOSE = 4;
+    static final int CANDLE_TICKS = 5;
+    static final int CANDLE_COLUMNS = 6;
+
+    private static final long DAY = 86_400_000L;
+    private static final int DRAIN_BATCH = 256;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private static final Logger logger = Loggers.getLogger(TickStore.class);
+
+    private final Path directory;
+    private final int initialCapacity;
+    private final ConcurrentHashMap<String, SymbolHistory> symbols = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Tick> queue;
+    private final Thread writer;
+    // Ticks aceptados que el hilo de fondo aún no ha guardado
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean closed;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // initialCapacity: filas con las que se crea cada segmento de ticks; crece al llenarse
+    // queueCapacity: ticks que pueden esperar a guardarse antes de empezar a descartar
+    public TickStore(Path directory, int initialCapacity, int queueCapacity) {
+        this.directory = directory;
+        this.initialCapacity = initialCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        writer = new Thread(this::drainLoop, "historico");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void onPrice(String symbol, long scaledPrice, long timestamp) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        pending.incrementAndGet();
+        if (!queue.offer(new Tick(symbol, timestamp, scaledPrice))) {
+            pending.decrementAndGet();
+            dropped.increment();
+        }
+    }
+
+    // Guardar un tick y actualizar sus velas; los errores de disco se registran sin propagarse
+    public void append(String symbol, long timestamp, long scaledPrice) {
+        SymbolHistory history = symbols.computeIfAbsent(normalize(symbol), SymbolHistory::new);
+        try {
+            if (history.append(timestamp, scaledPrice)) {
+                appended.increment();
+            } else {
+                outOfOrder.increment();
+            }
+        } catch (IOException e) {
+            errors.increment();
+            logger.log(Level.WARNING, "No se pudo guardar el tick de " + symbol, e);
+        }
+    }
+
+    // Recorrer los ticks de [from, to) en orden de hora
+    public void scan(String symbol, long from, long to, TickVisitor visitor) throws IOException {
+        String normalized = normalize(symbol);
+        forEachDay(normalized, from, to, ".ticks", TICK_COLUMNS, segment -> {
+            for (int row = segment.lowerBound(TICK_TIME, from); row < segment.count(); row++) {
+                long timestamp = segment.get(TICK_TIME, row);
+                if (timestamp >= to) {
+                    return false;
+                }
+                visitor.visit(timestamp, segment.get(TICK_PRICE, row));
+            }
+            return true;
+        });
+    }
+
+    // Recorrer las velas que empiezan en [from, to); sólo existen las de intervalos con ticks
+    public void candles(String symbol, Resolution resolution, long from, long to, CandleVisitor visitor)
+            throws IOException {
+        String normalized = normalize(symbol);
+        long first = Math.floorDiv(from, resolution.millis) * resolution.millis;
+        forEachDay(normalized, first, to, "." + resolution.extension, CANDLE_COLUMNS, segment -> {
+            for (int row = segment.lowerBound(CANDLE_START, first); row < segment.count(); row++) {
+                long start = segment.get(CANDLE_START, row);
+                if (start >= to) {
+                    return false;
+                }
+                visitor.visit(start, segment.get(CANDLE_OPEN, row), segment.get(CANDLE_HIGH, row),
+                        segment.get(CANDLE_LOW, row), segment.get(CANDLE_CLOSE, row), segment.get(CANDLE_TICKS, row));
+            }
+            return true;
+        });
+    }
+
+    // La vela que contiene ese instante, si tuvo algún tick; devuelve false si no existe
+    public boolean candle(String symbol, Resolution resolution, long timestamp, CandleVisitor visitor)
+            throws IOException {
+        long start = Math.floorDiv(timestamp, resolution.millis) * resolution.millis;
+        boolean[] found = new boolean[1];
+        candles(symbol, resolution, start, start + 1, (s, open, high, low, close, ticks) -> {
+            found[0] = true;
+            visitor.visit(s, open, high, low, close, ticks);
+        });
+        return found[0];
+    }
+
+    // Guardar lo que haya en la cola (espera como mucho 5 s) y pasar a disco lo escrito en
+    // los segmentos abiertos
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pending.get() > 0 && writer.isAlive() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (SymbolHistory history : symbols.values()) {
+            history.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getStats() {
+        return String.format("símbolos=%d, ticks=%d, desordenados=%d, errores=%d, en cola=%d, descartados=%d",
+                symbols.size(), appended.sum(), outOfOrder.sum(), errors.sum(), queue.size(), dropped.sum());
+    }
+
+    private void drainLoop() {
+        List<Tick> batch = new ArrayList<>(DRAIN_BATCH);
+        while (!closed) {
+            try {
+                Tick first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, DRAIN_BATCH - 1);
+            for (Tick tick : batch) {
+                append(tick.symbol, tick.timestamp, tick.scaledPrice);
+            }
+            pending.addAndGet(-batch.size());
+            batch.clear();
+        }
+    }
+
+    private static final class Tick {
+        final String symbol;
+        final long timestamp;
+        final long scaledPrice;
+
+        Tick(String symbol, long timestamp, long scaledPrice) {
+            this.symbol = symbol;
+            this.timestamp = timestamp;
+            this.scaledPrice = scaledPrice;
+        }
+    }
+
+    private interface SegmentReader {
+        // Devuelve false para dejar de leer días siguientes
+        boolean read(ColumnSegment segment);
+    }
+
+    // Recorrer los segmentos de los días que cubren [from, to); sólo se abren los días que
+    // tienen archivo. El del día en curso se lee con el cerrojo de su símbolo, porque puede
+    // estar creciendo
+    private void forEachDay(String symbol, long from, long to, String extension, int columns, SegmentReader reader)
+            throws IOException {
+        if (to <= from) {
+            return;
+        }
+        long firstDay = Math.floorDiv(from, DAY);
+        long lastDay = Math.floorDiv(to - 1, DAY);
+        SymbolHistory history = symbols.get(symbol);
+        for (long day : daysWithData(symbol, extension, firstDay, lastDay)) {
+            if (history != null) {
+                Boolean more = history.readLive(day, extension, reader);
+                if (more != null) {
+                    if (!more) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            ColumnSegment segment = ColumnSegment.openForRead(pathOf(symbol, day, extension), columns);
+            if (segment != null && !reader.read(segment)) {
+                return;
+            }
+        }
+    }
+
+    // Días de [firstDay, lastDay] con archivo, en orden
+    private long[] daysWithData(String symbol, String extension, long firstDay, long lastDay) throws IOException {
+        Path folder = directory.resolve(symbol);
+        if (!Files.isDirectory(folder)) {
+            return new long[0];
+        }
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(extension))
+                    .mapToLong(name -> {
+                        try {
+                            return LocalDate.parse(name.substring(0, name.length() - extension.length())).toEpochDay();
+                        } catch (DateTimeParseException e) {
+                            return Long.MIN_VALUE;
+                        }
+                    })
+                    .filter(day -> day >= firstDay && day <= lastDay)
+                    .sorted()
+                    .toArray();
+        }
+    }
+
+    private Path pathOf(String symbol, long day, String extension) {
+        return directory.resolve(symbol).resolve(LocalDate.ofEpochDay(day) + extension);
+    }
+
+    private static String normalize(String symbol) {
+        return symbol.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Segmentos abiertos del día en curso de un símbolo
+    private class SymbolHistory {
+        private final String symbol;
+        private long day = Long.MIN_VALUE;
+        private ColumnSegment ticks;
+        private final ColumnSegment[] candles = new ColumnSegment[RESOLUTIONS.length];
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        SymbolHistory(String symbol) {
+            this.symbol = symbol;
+        }
+
+        synchronized boolean append(long timestamp, long price) throws IOException {
+            if (day == Long.MIN_VALUE) {
+                recover();
+            }
+            if (timestamp < lastTimestamp) {
+                return false;
+            }
+            long tickDay = Math.floorDiv(timestamp, DAY);
+            if (tickDay != day) {
+                roll(tickDay);
+            }
+            ticks.append(timestamp, price);
+            lastTimestamp = timestamp;
+
+            for (int i = 0; i < RESOLUTIONS.length; i++) {
+                ColumnSegment segment = candles[i];
+                long start = Math.floorDiv(timestamp, RESOLUTIONS[i].millis) * RESOLUTIONS[i].millis;
+                int last = segment.count() - 1;
+                if (last >= 0 && segment.get(CANDLE_START, last) == start) {
+                    // Misma vela: sólo cambian máximo, mínimo, cierre y n.º de ticks
+                    segment.set(CANDLE_HIGH, last, Math.max(segment.get(CANDLE_HIGH, last), price));
+                    segment.set(CANDLE_LOW, last, Math.min(segment.get(CANDLE_LOW, last), price));
+                    segment.set(CANDLE_CLOSE, last, price);
+                    segment.set(CANDLE_TICKS, last, segment.get(CANDLE_TICKS, last) + 1);
+                } else {
+                    segment.append(start, price, price, price, price, 1);
+                }
+            }
+            return true;
+        }
+
+        // Leer el segmento si es del día abierto; null si no lo es
+        synchronized Boolean readLive(long requestedDay, String extension, SegmentReader reader) {
+            if (requestedDay != day) {
+                return null;
+            }
+            if (extension.equals(".ticks")) {
+                return reader.read(ticks);
+            }
+            for (int i = 0; i < RESOLUTIONS.length; i++) {
+                if (extension.equals("." + RESOLUTIONS[i].extension)) {
+                    return reader.read(candles[i]);
+                }
+            }
+            return null;
+        }
+
+        synchronized void force() {
+            if (ticks != null) {
+                ticks.force();
+                for (ColumnSegment segment : candles) {
+                    segment.force();
+                }
+            }
+        }
+
+        // Tras reiniciar, continuar desde el último tick guardado en cualquier día
+        private void recover() throws IOException {
+            long[] days = daysWithData(symbol, ".ticks", Long.MIN_VALUE, Long.MAX_VALUE);
+            for (int i = days.length - 1; i >= 0; i--) {
+                ColumnSegment segment = ColumnSegment.openForRead(pathOf(symbol, days[i], ".ticks"), TICK_COLUMNS);
+                if (segment != null && segment.count() > 0) {
+                    lastTimestamp = segment.get(TICK_TIME, segment.count() - 1);
+                    return;
+                }
+            }
+        }
+
+        // Cerrar los segmentos del día anterior y abrir (o retomar) los del nuevo
+        private void roll(long newDay) throws IOException {
+            force();
+            ticks = ColumnSegment.openForAppend(pathOf(symbol, newDay, ".ticks"), TICK_COLUMNS, initialCapacity);
+            for (int i = 0; i < RESOLUTIONS.length; i++) {
+                // Como mucho una vela por intervalo del día: 86400, 1440 o 24
+                int slots = (int) Math.min(DAY / RESOLUTIONS[i].millis, initialCapacity);
+                candles[i] = ColumnSegment.openForAppend(pathOf(symbol, newDay, "." + RESOLUTIONS[i].extension),
+                        CANDLE_COLUMNS, slots);
+            }
+            day = newDay;
+        }
+    }
+}
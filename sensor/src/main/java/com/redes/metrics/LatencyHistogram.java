@@ -0,0 +1,92 @@
+package com.redes.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias al estilo HDR: cubetas log-lineales en microsegundos, con
+// 16 subcubetas por cada potencia de dos (error relativo por debajo del 7 %).
+// Registrar es lock-free (un incremento atómico); los percentiles se calculan al leer.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    // Valor máximo representable: 2^36 µs (unas 19 horas); lo que pase se cuenta en la última cubeta
+    private static final int MAX_BITS = 36;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        sum.add(micros);
+        long current;
+        while (micros > (current = max.get()) && !max.compareAndSet(current, micros)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getSumSeconds() {
+        return sum.sum() / 1e6;
+    }
+
+    public double getMaxSeconds() {
+        return max.get() / 1e6;
+    }
+
+    // Percentil (0..1) en segundos; se toma el punto medio de la cubeta
+    public double getQuantileSeconds(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                long lower = lowerBound(i);
+                long upper = lowerBound(i + 1) - 1;
+                return Math.min((lower + upper) / 2.0, max.get()) / 1e6;
+            }
+        }
+        return max.get() / 1e6;
+    }
+
+    // Hasta SUB_BUCKETS cada valor tiene su cubeta; a partir de ahí cada potencia de dos
+    // se reparte en HALF_SUB_BUCKETS cubetas del mismo ancho
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long mantissa = index - (long) shift * HALF_SUB_BUCKETS;
+        return mantissa << shift;
+    }
+}
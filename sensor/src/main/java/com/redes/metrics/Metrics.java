@@ -0,0 +1,151 @@
+package com.redes.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas del sensor, compartidas por todos sus componentes como los loggers.
+// Registrar no bloquea: los histogramas y contadores se crean la primera vez que
+// aparece un símbolo o un tipo de error y a partir de ahí sólo hay incrementos atómicos.
+public class Metrics {
+    public static final String FETCH = "fetch";
+    public static final String PARSE = "parse";
+    public static final String PUBLISH = "publish";
+
+    // Etiqueta de símbolo para las peticiones y respuestas que cubren varios símbolos
+    public static final String BATCH = "batch";
+
+    private static final String SUCCESS = "ok";
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, LatencyHistogram>> latencies =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> results =
+            new ConcurrentHashMap<>();
+    private static final TickStats ticks = new TickStats();
+
+    private Metrics() {
+    }
+
+    public static void recordLatency(String operation, String symbol, long nanos) {
+        ConcurrentHashMap<String, LatencyHistogram> bySymbol = latencies.get(operation);
+        if (bySymbol == null) {
+            bySymbol = latencies.computeIfAbsent(operation, o -> new ConcurrentHashMap<>());
+        }
+        LatencyHistogram histogram = bySymbol.get(symbol);
+        if (histogram == null) {
+            histogram = bySymbol.computeIfAbsent(symbol, s -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    public static void success(String operation) {
+        counter(operation, SUCCESS).increment();
+    }
+
+    // Los fallos se cuentan por tipo de excepción (la causa real si viene envuelta)
+    public static void failure(String operation, Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        counter(operation, error.getClass().getSimpleName()).increment();
+    }
+
+    public static void setTickInterval(long millis) {
+        ticks.setInterval(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    public static TickStats ticks() {
+        return ticks;
+    }
+
+    private static LongAdder counter(String operation, String result) {
+        ConcurrentHashMap<String, LongAdder> byResult = results.get(operation);
+        if (byResult == null) {
+            byResult = results.computeIfAbsent(operation, o -> new ConcurrentHashMap<>());
+        }
+        LongAdder counter = byResult.get(result);
+        if (counter == null) {
+            counter = byResult.computeIfAbsent(result, r -> new LongAdder());
+        }
+        return counter;
+    }
+
+    // Todas las métricas en el formato de texto de Prometheus
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        for (String operation : new String[] { FETCH, PARSE, PUBLISH }) {
+            String name = "cryptosensor_" + operation + "_seconds";
+            header(out, name, "summary", "Latencia de " + operation + " por símbolo");
+            Map<String, LatencyHistogram> bySymbol = new TreeMap<>(latencies.getOrDefault(operation, new ConcurrentHashMap<>()));
+            for (Map.Entry<String, LatencyHistogram> entry : bySymbol.entrySet()) {
+                String labels = "symbol=\"" + escape(entry.getKey()) + "\"";
+                summary(out, name, labels, entry.getValue());
+            }
+        }
+
+        header(out, "cryptosensor_operations_total", "counter", "Operaciones por resultado (ok o tipo de excepción)");
+        for (Map.Entry<String, ConcurrentHashMap<String, LongAdder>> operation : new TreeMap<>(results).entrySet()) {
+            for (Map.Entry<String, LongAdder> result : new TreeMap<>(operation.getValue()).entrySet()) {
+                out.append("cryptosensor_operations_total{operation=\"").append(escape(operation.getKey()))
+                        .append("\",result=\"").append(escape(result.getKey())).append("\"} ")
+                        .append(result.getValue().sum()).append('\n');
+            }
+        }
+
+        header(out, "cryptosensor_tick_seconds", "summary", "Duración de cada tick");
+        summary(out, "cryptosensor_tick_seconds", "", ticks.getDurations());
+        scalar(out, "cryptosensor_ticks_total", "counter", "Ticks iniciados", ticks.getStartedCount());
+        scalar(out, "cryptosensor_ticks_skipped_total", "counter", "Ticks omitidos porque el anterior seguía en curso",
+                ticks.getSkippedCount());
+        scalar(out, "cryptosensor_tick_overruns_total", "counter", "Ticks que duraron más que el intervalo",
+                ticks.getOverrunCount());
+        scalar(out, "cryptosensor_tick_drift_seconds", "gauge", "Retraso del último tick respecto a su hora prevista",
+                ticks.getLastDriftSeconds());
+        scalar(out, "cryptosensor_tick_drift_max_seconds", "gauge", "Mayor retraso observado de un tick",
+                ticks.getMaxDriftSeconds());
+
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void summary(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(separator)
+                    .append("quantile=\"").append(quantile).append("\"} ")
+                    .append(number(histogram.getQuantileSeconds(quantile))).append('\n');
+        }
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ').append(number(histogram.getSumSeconds())).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(histogram.getCount()).append('\n');
+    }
+
+    private static void scalar(StringBuilder out, String name, String type, String help, double value) {
+        header(out, name, type, help);
+        out.append(name).append(' ').append(number(value)).append('\n');
+    }
+
+    private static String number(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
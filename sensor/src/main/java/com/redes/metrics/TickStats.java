@@ -0,0 +1,81 @@
+package com.redes.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Duración, desfase y desbordamientos de los ticks periódicos.
+// El desfase es lo que se retrasa el inicio de cada tick respecto a su hora prevista
+// (primer tick + n * intervalo); un desbordamiento es un tick que dura más que el intervalo.
+public class TickStats {
+    private final LatencyHistogram durations = new LatencyHistogram();
+    private final AtomicLong firstStart = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private final AtomicLong maxDrift = new AtomicLong();
+    private volatile long lastDrift;
+    private volatile long intervalNanos;
+
+    public void setInterval(long nanos) {
+        intervalNanos = nanos;
+    }
+
+    // Devuelve la hora de inicio, que se pasa luego a finished()
+    public long started() {
+        long now = System.nanoTime();
+        long n = started.getAndIncrement();
+        if (n == 0) {
+            firstStart.set(now);
+            return now;
+        }
+
+        long interval = intervalNanos;
+        long first = firstStart.get();
+        if (interval > 0 && first != 0) {
+            long drift = now - (first + n * interval);
+            lastDrift = drift;
+            long current;
+            while (drift > (current = maxDrift.get()) && !maxDrift.compareAndSet(current, drift)) {
+                Thread.onSpinWait();
+            }
+        }
+        return now;
+    }
+
+    public void skipped() {
+        skipped.increment();
+    }
+
+    public void finished(long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        durations.record(duration);
+        long interval = intervalNanos;
+        if (interval > 0 && duration > interval) {
+            overruns.increment();
+        }
+    }
+
+    public LatencyHistogram getDurations() {
+        return durations;
+    }
+
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    public long getOverrunCount() {
+        return overruns.sum();
+    }
+
+    public double getLastDriftSeconds() {
+        return lastDrift / 1e9;
+    }
+
+    public double getMaxDriftSeconds() {
+        return maxDrift.get() / 1e9;
+    }
+}
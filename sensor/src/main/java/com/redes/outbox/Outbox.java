@@ -0,0 +1,372 @@
+package com.redes.outbox;
+
+import com.redes.util.Loggers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// Cola de mensajes MQTT pendientes en disco, para cuando el bróker no está disponible.
+// Son archivos de tamaño fijo (segmentos) mapeados en memoria donde sólo se añade; cada
+// registro lleva su longitud y un CRC, y la longitud se escribe la última, así que tras
+// una caída la cola se retoma hasta el último registro completo. La posición de lectura
+// se guarda aparte (outbox.pos) cuando se confirma lo enviado, y los segmentos ya leídos
+// se borran. Nada de esto vive en el heap: el tamaño lo limita maxSegments.
+//
+// Registro: int longitud, int CRC32, byte retain, short longitud del tópico, tópico
+// (UTF-8), contenido. Una longitud 0 marca el final de lo escrito en el segmento.
+public class Outbox implements AutoCloseable {
+    private static final int RECORD_HEADER = 8;
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String POSITION_FILE = "outbox.pos";
+
+    private static final Logger logger = Loggers.getLogger(Outbox.class);
+
+    public static class Entry {
+        private final String topic;
+        private final byte[] payload;
+        private final boolean retain;
+
+        Entry(String topic, byte[] payload, boolean retain) {
+            this.topic = topic;
+            this.payload = payload;
+            this.retain = retain;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public boolean isRetain() {
+            return retain;
+        }
+    }
+
+    // Lote leído: las entradas, la posición desde la que se leyó y la posición a confirmar
+    // cuando se hayan enviado
+    public static class Batch {
+        private final List<Entry> entries;
+        private final long startSegment;
+        private final int startOffset;
+        private final long segment;
+        private final int offset;
+        private final int records;
+
+        Batch(List<Entry> entries, long startSegment, int startOffset, long segment, int offset, int records) {
+            this.entries = entries;
+            this.startSegment = startSegment;
+            this.startOffset = startOffset;
+            this.segment = segment;
+            this.offset = offset;
+            this.records = records;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        // Registros leídos del disco, incluidos los sustituidos por otros más recientes
+        public int getRecordCount() {
+            return records;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    // Segmentos en disco (número -> archivo mapeado), del más antiguo al más reciente
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private long writeSegment;
+    private int writeOffset;
+    private long readSegment;
+    private int readOffset;
+    private long pending;
+    private boolean dirty;
+    private long dropped;
+
+    public Outbox(Path directory, int segmentSize, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(2, maxSegments);
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    // Añadir un mensaje; si no cabe en el segmento actual se abre otro
+    public synchronized void append(String topic, byte[] payload, boolean retain) throws IOException {
+        byte[] topicBytes = topic.getBytes(UTF_8);
+        int bodyLength = 1 + 2 + topicBytes.length + payload.length;
+        int recordLength = RECORD_HEADER + bodyLength;
+        if (recordLength + 4 > segmentSize) {
+            throw new IOException("Mensaje demasiado grande para el outbox: " + recordLength + " bytes");
+        }
+        if (writeOffset + recordLength + 4 > segmentSize) {
+            openSegment(writeSegment + 1);
+        }
+
+        MappedByteBuffer buffer = segments.get(writeSegment);
+        int body = writeOffset + RECORD_HEADER;
+        buffer.put(body, (byte) (retain ? 1 : 0));
+        buffer.putShort(body + 1, (short) topicBytes.length);
+        buffer.put(body + 3, topicBytes);
+        buffer.put(body + 3 + topicBytes.length, payload);
+        buffer.putInt(writeOffset + 4, crc(buffer, body, bodyLength));
+        // La longitud, al final: hasta aquí el registro no existe para quien lea
+        buffer.putInt(writeOffset, bodyLength);
+
+        writeOffset += recordLength;
+        pending++;
+        dirty = true;
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending == 0;
+    }
+
+    public synchronized long getPendingCount() {
+        return pending;
+    }
+
+    // Leer hasta maxRecords registros a partir de la posición confirmada, sin avanzarla
+    public synchronized Batch read(int maxRecords) {
+        List<Entry> entries = new ArrayList<>();
+        long segment = readSegment;
+        int offset = readOffset;
+        int records = 0;
+        while (records < maxRecords) {
+            MappedByteBuffer buffer = segments.get(segment);
+            int length = buffer == null || offset + 4 > segmentSize ? 0 : buffer.getInt(offset);
+            if (length == 0) {
+                // Fin del segmento: pasar al siguiente si existe
+                Long next = segments.higherKey(segment);
+                if (next == null) {
+                    break;
+                }
+                segment = next;
+                offset = 0;
+                continue;
+            }
+            entries.add(decode(buffer, offset + RECORD_HEADER, length));
+            offset += RECORD_HEADER + length;
+            records++;
+        }
+        return new Batch(entries, readSegment, readOffset, segment, offset, records);
+    }
+
+    // Dar por enviado un lote: avanzar la posición y borrar los segmentos terminados.
+    // Si mientras se enviaba el outbox se llenó y descartó segmentos, la posición ya no es
+    // la del lote: uno que acaba antes de ella no cambia nada, y si acaba después los
+    // pendientes se vuelven a contar (los descartados ya se restaron)
+    public synchronized void commit(Batch batch) throws IOException {
+        if (batch.records == 0) {
+            return;
+        }
+        boolean stale = batch.startSegment != readSegment || batch.startOffset != readOffset;
+        if (stale && (batch.segment < readSegment || (batch.segment == readSegment && batch.offset <= readOffset))) {
+            return;
+        }
+        readSegment = batch.segment;
+        readOffset = batch.offset;
+        pending = stale ? countPending() : Math.max(0, pending - batch.records);
+        writePosition();
+        while (segments.firstKey() < readSegment) {
+            deleteSegment(segments.firstKey());
+        }
+    }
+
+    // Pasar a disco lo escrito desde la última vez (fsync por lotes)
+    public synchronized void sync() {
+        if (!dirty) {
+            return;
+        }
+        MappedByteBuffer buffer = segments.get(writeSegment);
+        if (buffer != null) {
+            buffer.force();
+        }
+        dirty = false;
+    }
+
+    public synchronized String getStats() {
+        return String.format("pendientes=%d, segmentos=%d, descartados=%d", pending, segments.size(), dropped);
+    }
+
+    @Override
+    public void close() {
+        sync();
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long number = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length()));
+                    segments.put(number, map(file));
+                }
+            }
+        }
+        readPosition();
+
+        // Segmentos anteriores a la posición de lectura ya se enviaron
+        while (!segments.isEmpty() && segments.firstKey() < readSegment) {
+            deleteSegment(segments.firstKey());
+        }
+        if (segments.isEmpty()) {
+            readOffset = 0;
+            openSegment(readSegment);
+            return;
+        }
+        if (!segments.containsKey(readSegment)) {
+            readSegment = segments.firstKey();
+            readOffset = 0;
+        }
+
+        // Contar los pendientes y encontrar el final de lo escrito (el último registro
+        // entero con CRC correcto); lo que haya detrás se descarta
+        for (long number : segments.keySet()) {
+            MappedByteBuffer buffer = segments.get(number);
+            int offset = number == readSegment ? readOffset : 0;
+            while (offset + 4 <= segmentSize) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + RECORD_HEADER + length > segmentSize
+                        || buffer.getInt(offset + 4) != crc(buffer, offset + RECORD_HEADER, length)) {
+                    break;
+                }
+                offset += RECORD_HEADER + length;
+                pending++;
+            }
+            writeSegment = number;
+            writeOffset = offset;
+        }
+        // Borrar un posible registro a medias para que no se confunda con uno válido
+        if (writeOffset + 4 <= segmentSize) {
+            segments.get(writeSegment).putInt(writeOffset, 0);
+        }
+        if (pending > 0) {
+            logger.log(Level.INFO, "Outbox: {0} mensajes pendientes de una ejecución anterior", pending);
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        sync();
+        Path path = segmentPath(number);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            segments.put(number, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        }
+        writeSegment = number;
+        writeOffset = 0;
+
+        // Sin espacio: se pierden los mensajes más antiguos, que son los que antes quedan sustituidos
+        while (segments.size() > maxSegments) {
+            long oldest = segments.firstKey();
+            long lost = countRecords(segments.get(oldest), oldest == readSegment ? readOffset : 0);
+            dropped += lost;
+            pending = Math.max(0, pending - lost);
+            deleteSegment(oldest);
+            readSegment = segments.firstKey();
+            readOffset = 0;
+            writePosition();
+            logger.log(Level.WARNING, "Outbox lleno: descartados {0} mensajes antiguos", lost);
+        }
+    }
+
+    // Registros desde la posición de lectura hasta el final de lo escrito
+    private long countPending() {
+        long count = 0;
+        for (long number : segments.tailMap(readSegment, true).keySet()) {
+            count += countRecords(segments.get(number), number == readSegment ? readOffset : 0);
+        }
+        return count;
+    }
+
+    private long countRecords(MappedByteBuffer buffer, int offset) {
+        long count = 0;
+        while (offset + 4 <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0) {
+                break;
+            }
+            offset += RECORD_HEADER + length;
+            count++;
+        }
+        return count;
+    }
+
+    private void deleteSegment(long number) throws IOException {
+        segments.remove(number);
+        Files.deleteIfExists(segmentPath(number));
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private void readPosition() throws IOException {
+        Path path = directory.resolve(POSITION_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        ByteBuffer position = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (position.remaining() >= 12) {
+            readSegment = position.getLong();
+            readOffset = position.getInt();
+        }
+    }
+
+    // Escribir a un temporal y renombrar, para no dejar nunca una posición a medias
+    private void writePosition() throws IOException {
+        ByteBuffer position = ByteBuffer.allocate(12).putLong(readSegment).putInt(readOffset);
+        Path temp = directory.resolve(POSITION_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(position.flip());
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(POSITION_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Entry decode(MappedByteBuffer buffer, int body, int length) {
+        boolean retain = buffer.get(body) != 0;
+        int topicLength = buffer.getShort(body + 1);
+        byte[] topic = new byte[topicLength];
+        buffer.get(body + 3, topic);
+        byte[] payload = new byte[length - 3 - topicLength];
+        buffer.get(body + 3 + topicLength, payload);
+        return new Entry(new String(topic, UTF_8), payload, retain);
+    }
+
+    private static int crc(MappedByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.redes.outbox;
+
+import com.redes.util.Loggers;
+
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Vacía el outbox hacia el bróker cuando hay conexión. Lee lotes de registros, se queda
+// sólo con el último mensaje de cada tópico (un precio más nuevo deja obsoleto al
+// anterior), los publica con QoS 1 a como mucho `ratePerSecond` mensajes por segundo y
+// confirma el lote en el outbox cuando han llegado todos los PUBACK. Si algo falla el
+// lote no se confirma y se reintenta entero más tarde.
+//
+// Otro hilo pasa a disco lo escrito en el outbox cada `syncMillis` ms (fsync por lotes).
+public class OutboxDrainer {
+    private static final long ACK_TIMEOUT = 30_000;
+
+    private static final Logger logger = Loggers.getLogger(OutboxDrainer.class);
+
+    private final Outbox outbox;
+    private final Mqtt3AsyncClient mqttClient;
+    private final int batchSize;
+    private final long intervalNanos;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Instante (nanoTime) a partir del cual puede salir el siguiente mensaje
+    private long nextSend = System.nanoTime();
+
+    private final LongAdder drained = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public OutboxDrainer(Outbox outbox, Mqtt3AsyncClient mqttClient, int batchSize, int ratePerSecond) {
+        this.outbox = outbox;
+        this.mqttClient = mqttClient;
+        this.batchSize = batchSize;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, ratePerSecond);
+    }
+
+    public void start(long drainMillis, long syncMillis) {
+        scheduler.scheduleWithFixedDelay(this::drain, drainMillis, drainMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(outbox::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Detener el vaciado; lo pendiente queda en disco para la próxima ejecución
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        outbox.sync();
+    }
+
+    private void drain() {
+        long start = outbox.getPendingCount();
+        try {
+            while (mqttClient.getState().isConnected() && !outbox.isEmpty()
+                    && !Thread.currentThread().isInterrupted()) {
+                Outbox.Batch batch = outbox.read(batchSize);
+                Map<String, Outbox.Entry> latest = collapse(batch.getEntries());
+                publish(latest.values());
+                outbox.commit(batch);
+                drained.add(latest.size());
+                collapsed.add(batch.getRecordCount() - latest.size());
+            }
+            if (start > 0 && outbox.isEmpty()) {
+                logger.log(Level.INFO, "Outbox vaciado: {0}", getStats());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failures.increment();
+            logger.log(Level.WARNING, "No se pudo vaciar el outbox; se reintentará", e);
+        }
+    }
+
+    // Último mensaje de cada tópico, en el orden en que se escribieron esos últimos
+    private static Map<String, Outbox.Entry> collapse(List<Outbox.Entry> entries) {
+        Map<String, Outbox.Entry> latest = new LinkedHashMap<>();
+        for (Outbox.Entry entry : entries) {
+            latest.remove(entry.getTopic());
+            latest.put(entry.getTopic(), entry);
+        }
+        return latest;
+    }
+
+    private void publish(Iterable<Outbox.Entry> entries) throws Exception {
+        List<CompletableFuture<?>> acks = new ArrayList<>();
+        for (Outbox.Entry entry : entries) {
+            // Ritmo fijo, sin ráfagas al reconectar
+            long wait = nextSend - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            nextSend = Math.max(nextSend, System.nanoTime()) + intervalNanos;
+            acks.add(mqttClient.publishWith()
+                    .topic(entry.getTopic())
+                    .qos(MqttQos.AT_LEAST_ONCE)
+                    .retain(entry.isRetain())
+                    .payload(entry.getPayload())
+                    .send());
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture<?>[0])).get(ACK_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    public String getStats() {
+        return String.format("reenviados=%d, sustituidos=%d, fallos=%d, %s",
+                drained.sum(), collapsed.sum(), failures.sum(), outbox.getStats());
+    }
+}
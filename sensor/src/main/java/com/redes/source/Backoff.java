@@ -0,0 +1,16 @@
+package com.redes.source;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Espera exponencial con jitter: base * 2^intento, acotada a max, de la que se toma al
+// azar entre la mitad y el total para que varios clientes no reintenten a la vez.
+public class Backoff {
+    private Backoff() {
+    }
+
+    public static long delay(long baseMillis, long maxMillis, int attempt) {
+        long delay = Math.min(maxMillis, baseMillis << Math.min(attempt, 30));
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+}
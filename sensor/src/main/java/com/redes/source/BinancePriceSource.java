@@ -0,0 +1,462 @@
+package com.redes.source;
+
+import com.redes.BinanceUnavailableException;
+import com.redes.ConnectBinanceException;
+import com.redes.InvalidSymbolException;
+import com.redes.codec.FixedPoint;
+import com.redes.metrics.Metrics;
+import com.redes.util.Loggers;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Fuente de precios sobre la API REST de Binance.
+// Mantiene un único HttpClient (HTTP/2, conexiones persistentes) durante toda la vida
+// del sensor; es seguro para usarse desde varios hilos.
+//
+// Si Binance rechaza una petición por lotes (400, algún símbolo no existe) el lote se
+// parte en dos hasta aislar el símbolo culpable; ése se omite durante una hora y los
+// demás precios del tick llegan igualmente.
+public class BinancePriceSource {
+    public static final String DEFAULT_BASE_URL = "https://api.binance.com";
+
+    private static final String TICKER_PATH = "/api/v3/ticker/price";
+
+    // Longitud máxima de la URL de una petición por lotes; si se supera se parte en varias
+    private static final int MAX_URL_LENGTH = 4096;
+
+    // A partir de este número de símbolos sale más barato pedir todos los precios y filtrar
+    private static final int ALL_SYMBOLS_THRESHOLD = 200;
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    // Tiempo durante el que no se vuelve a pedir un símbolo rechazado por Binance
+    private static final long INVALID_SYMBOL_RETRY = 3_600_000L;
+
+    private static final Logger logger = Loggers.getLogger(BinancePriceSource.class);
+
+    // Peso de /api/v3/ticker/price con el parámetro symbols o sin símbolos
+    private static final int REQUEST_WEIGHT = 4;
+    private static final String USED_WEIGHT_HEADER = "X-MBX-USED-WEIGHT-1M";
+
+    private final String tickerUrl;
+    private final Duration requestTimeout;
+    private final CountingSSLContext sslContext;
+    private final HttpClient httpClient;
+    private final LongAdder requests = new LongAdder();
+    private final RateLimiter limiter;
+    private final CircuitBreaker breaker;
+
+    // Buffers de lectura de respuestas, reutilizados entre peticiones
+    private final ConcurrentLinkedQueue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+    private volatile CachedUrls cachedUrls;
+    // Peticiones de un solo símbolo (getPrice), con su tabla y su URL ya preparadas
+    private final ConcurrentHashMap<String, TickerRequest> singleRequests = new ConcurrentHashMap<>();
+    // Símbolos rechazados por Binance -> hora (ms) hasta la que se omiten
+    private final ConcurrentHashMap<String, Long> invalidSymbols = new ConcurrentHashMap<>();
+    private volatile Consumer<String> invalidSymbolListener;
+
+    public BinancePriceSource(String baseUrl, Duration connectTimeout, Duration requestTimeout) {
+        this(baseUrl, connectTimeout, requestTimeout,
+                new RateLimiter(RateLimiter.DEFAULT_WEIGHT_PER_MINUTE),
+                new CircuitBreaker(5, 1000, 300000));
+    }
+
+    public BinancePriceSource(String baseUrl, Duration connectTimeout, Duration requestTimeout,
+            RateLimiter limiter, CircuitBreaker breaker) {
+        this.tickerUrl = baseUrl + TICKER_PATH;
+        this.requestTimeout = requestTimeout;
+        this.limiter = limiter;
+        this.breaker = breaker;
+        try {
+            this.sslContext = CountingSSLContext.wrap(SSLContext.getDefault());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No hay contexto TLS disponible", e);
+        }
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .sslContext(sslContext)
+                .build();
+    }
+
+    // Obtener el precio de una sola criptomoneda
+    public double getPrice(String symbol) throws ConnectBinanceException {
+        // Validar el símbolo
+        if (symbol == null || symbol.trim().isEmpty()) {
+            throw new ConnectBinanceException("Símbolo inválido: " + symbol);
+        }
+
+        // Normalizar el símbolo
+        String trimmed = symbol.trim().toUpperCase(Locale.ROOT);
+
+        if (isInvalidSymbol(trimmed)) {
+            throw new InvalidSymbolException("Binance no reconoce el símbolo " + trimmed);
+        }
+
+        // La tabla y la URL de cada símbolo se preparan una sola vez
+        TickerRequest request = singleRequests.computeIfAbsent(trimmed, s -> {
+            List<String> symbols = List.of(s);
+            return new TickerRequest(new SymbolTable(symbols), symbols, URI.create(batchUrl(symbols)));
+        });
+        PriceBook book = new PriceBook(1);
+        try {
+            fetchTicker(request.uri, request.table, book);
+        } catch (InvalidSymbolException e) {
+            markInvalid(trimmed);
+            throw e;
+        }
+        if (!book.has(0)) {
+            throw new ConnectBinanceException("La respuesta no contiene el precio de " + trimmed);
+        }
+        return FixedPoint.toDouble(book.price(0));
+    }
+
+    // Obtener los precios de varias criptomonedas con el menor número posible de peticiones
+    public Map<String, Double> getPrices(Collection<String> symbols) throws ConnectBinanceException {
+        // Validar los símbolos
+        for (String symbol : symbols) {
+            if (symbol == null || symbol.trim().isEmpty()) {
+                throw new ConnectBinanceException("Símbolo inválido: " + symbol);
+            }
+        }
+
+        SymbolTable table = new SymbolTable(symbols);
+        PriceBook book = new PriceBook(table.size());
+        fetchInto(table, book);
+
+        Map<String, Double> prices = new HashMap<>();
+        for (int id = 0; id < table.size(); id++) {
+            if (book.has(id)) {
+                prices.put(table.symbol(id), FixedPoint.toDouble(book.price(id)));
+            }
+        }
+        return prices;
+    }
+
+    // Obtener los precios de todos los símbolos de la tabla y guardarlos en el PriceBook.
+    // Es el camino del tick: la respuesta se lee en un buffer reutilizado y se convierte a
+    // punto fijo sin pasar por String, Gson ni Double.parseDouble. Devuelve cuántos precios llegaron.
+    public int fetchInto(SymbolTable table, PriceBook book) throws ConnectBinanceException {
+        book.clear();
+        if (table.size() == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        for (TickerRequest request : requestsFor(table)) {
+            count += fetch(request, table, book);
+        }
+        return count;
+    }
+
+    // Avisar de cada símbolo que Binance rechace
+    public void setInvalidSymbolListener(Consumer<String> listener) {
+        this.invalidSymbolListener = listener;
+    }
+
+    // Símbolo rechazado hace poco por Binance
+    public boolean isInvalidSymbol(String symbol) {
+        Long until = invalidSymbols.get(symbol.trim().toUpperCase(Locale.ROOT));
+        return until != null && System.currentTimeMillis() < until;
+    }
+
+    // Una petición; si Binance la rechaza por los símbolos, partirla para salvar los válidos
+    private int fetch(TickerRequest request, SymbolTable table, PriceBook book) throws ConnectBinanceException {
+        try {
+            return fetchTicker(request.uri, table, book);
+        } catch (InvalidSymbolException e) {
+            if (request.symbols == null) {
+                throw e;
+            }
+            if (request.symbols.size() == 1) {
+                markInvalid(request.symbols.get(0));
+                return 0;
+            }
+            int half = request.symbols.size() / 2;
+            return fetch(batchRequest(request.symbols.subList(0, half)), table, book)
+                    + fetch(batchRequest(request.symbols.subList(half, request.symbols.size())), table, book);
+        }
+    }
+
+    private void markInvalid(String symbol) {
+        invalidSymbols.put(symbol, System.currentTimeMillis() + INVALID_SYMBOL_RETRY);
+        cachedUrls = null;
+        logger.log(Level.WARNING, "Binance no reconoce el símbolo {0}; se omite durante {1} min",
+                new Object[] { symbol, INVALID_SYMBOL_RETRY / 60000 });
+        Consumer<String> listener = invalidSymbolListener;
+        if (listener != null) {
+            listener.accept(symbol);
+        }
+    }
+
+    // Peticiones enviadas desde que se creó la fuente
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    // Conexiones TLS abiertas (cada una implica un handshake completo o reanudado)
+    public long getHandshakeCount() {
+        return sslContext.getEngineCount();
+    }
+
+    // Peticiones que se sirvieron sobre una conexión ya abierta
+    public long getReusedConnectionCount() {
+        return Math.max(0, getRequestCount() - getHandshakeCount());
+    }
+
+    // Estado del cortacircuitos y peso disponible en el presupuesto por minuto
+    public CircuitBreaker.State getCircuitState() {
+        return breaker.getState();
+    }
+
+    public double getAvailableWeight() {
+        return limiter.getAvailableWeight();
+    }
+
+    // Peticiones de la tabla; se recalculan sólo cuando cambian los símbolos o caduca el
+    // rechazo de alguno
+    private List<TickerRequest> requestsFor(SymbolTable table) {
+        long now = System.currentTimeMillis();
+        CachedUrls cached = cachedUrls;
+        if (cached != null && cached.table == table && cached.size == table.size() && now < cached.expiresAt) {
+            return cached.requests;
+        }
+
+        List<TickerRequest> requests = new ArrayList<>();
+        long expiresAt = Long.MAX_VALUE;
+        if (table.size() >= ALL_SYMBOLS_THRESHOLD) {
+            // Con muchos símbolos se descarga la lista completa y se filtra
+            requests.add(new TickerRequest(table, null, URI.create(tickerUrl)));
+        } else {
+            List<String> symbols = new ArrayList<>();
+            for (String symbol : table.symbols()) {
+                Long until = invalidSymbols.get(symbol);
+                if (until != null && now < until) {
+                    expiresAt = Math.min(expiresAt, until);
+                } else {
+                    symbols.add(symbol);
+                }
+            }
+            for (List<String> chunk : buildBatches(symbols)) {
+                requests.add(batchRequest(chunk));
+            }
+        }
+        cachedUrls = new CachedUrls(table, table.size(), requests, expiresAt);
+        return requests;
+    }
+
+    // Agrupar los símbolos en peticiones ?symbols=[...] cuya URL no supere MAX_URL_LENGTH
+    private List<List<String>> buildBatches(List<String> symbols) {
+        List<List<String>> batches = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        for (String symbol : symbols) {
+            chunk.add(symbol);
+            if (chunk.size() > 1 && batchUrl(chunk).length() > MAX_URL_LENGTH) {
+                chunk.remove(chunk.size() - 1);
+                batches.add(chunk);
+                chunk = new ArrayList<>();
+                chunk.add(symbol);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            batches.add(chunk);
+        }
+        return batches;
+    }
+
+    private TickerRequest batchRequest(List<String> symbols) {
+        List<String> copy = List.copyOf(symbols);
+        return new TickerRequest(null, copy, URI.create(batchUrl(copy)));
+    }
+
+    private String batchUrl(List<String> symbols) {
+        StringBuilder items = new StringBuilder();
+        for (String symbol : symbols) {
+            if (items.length() > 0) {
+                items.append(',');
+            }
+            items.append('"').append(symbol).append('"');
+        }
+        return tickerUrl + "?symbols=" + URLEncoder.encode("[" + items + "]", StandardCharsets.UTF_8);
+    }
+
+    // Petición HTTP al endpoint de precios; la respuesta se vuelca en el PriceBook
+    private int fetchTicker(URI uri, SymbolTable table, PriceBook book) throws ConnectBinanceException {
+        String label = table.size() == 1 ? table.symbol(0) : Metrics.BATCH;
+        try {
+            int count = readTicker(uri, table, book, label);
+            Metrics.success(Metrics.FETCH);
+            return count;
+        } catch (ConnectBinanceException e) {
+            Metrics.failure(Metrics.FETCH, e);
+            throw e;
+        }
+    }
+
+    private int readTicker(URI uri, SymbolTable table, PriceBook book, String label) throws ConnectBinanceException {
+        // Con el circuito abierto o sin presupuesto de peso la petición ni siquiera sale
+        if (!breaker.allowRequest()) {
+            long remaining = breaker.getRemainingOpenMillis();
+            throw new BinanceUnavailableException("Circuito abierto; Binance no se consulta durante "
+                    + remaining + " ms", remaining);
+        }
+        long wait = limiter.tryAcquire(REQUEST_WEIGHT);
+        if (wait > 0) {
+            breaker.release();
+            throw new BinanceUnavailableException("Presupuesto de peso de Binance agotado durante " + wait + " ms", wait);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(requestTimeout)
+                .GET()
+                .header("Accept", "application/json")
+                .build();
+
+        byte[] buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+        try {
+            requests.increment();
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+            int length;
+            try (InputStream body = response.body()) {
+                response.headers().firstValue(USED_WEIGHT_HEADER).ifPresent(used -> {
+                    try {
+                        limiter.observeUsedWeight(Integer.parseInt(used.trim()));
+                    } catch (NumberFormatException ignore) {
+                    }
+                });
+
+                // Código de respuesta
+                int status = response.statusCode();
+                if (status == 429 || status == 418) {
+                    // 429: límite superado; 418: IP bloqueada por seguir insistiendo tras un 429
+                    long retryAfter = retryAfterMillis(response);
+                    limiter.pause(retryAfter);
+                    breaker.recordRateLimited(retryAfter);
+                    throw new BinanceUnavailableException("Binance ha limitado las peticiones (" + status
+                            + "); reintentar en " + retryAfter + " ms", retryAfter);
+                }
+                if (status >= 500) {
+                    breaker.recordFailure();
+                    throw new ConnectBinanceException("Respuesta HTTP inválida: " + status);
+                }
+                if (status == 400) {
+                    // Un símbolo inexistente no dice nada de la salud de la API
+                    breaker.recordSuccess();
+                    throw new InvalidSymbolException("Binance ha rechazado los símbolos de " + uri);
+                }
+                if (status != 200) {
+                    // Un 4xx es un error de la petición, no de la salud de la API
+                    breaker.recordSuccess();
+                    throw new ConnectBinanceException("Respuesta HTTP inválida: " + status);
+                }
+
+                // Leer el cuerpo completo en el buffer, ampliándolo si hace falta
+                length = 0;
+                int read;
+                while ((read = body.read(buffer, length, buffer.length - length)) != -1) {
+                    length += read;
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                }
+            }
+            breaker.recordSuccess();
+
+            Metrics.recordLatency(Metrics.FETCH, label, System.nanoTime() - start);
+
+            // Respuesta no vacía
+            if (length == 0) {
+                throw new ConnectBinanceException("Respuesta vacía: " + uri);
+            }
+
+            // Convertir a punto fijo
+            try {
+                long parseStart = System.nanoTime();
+                int count = TickerParser.parse(buffer, length, table, book, System.currentTimeMillis());
+                Metrics.recordLatency(Metrics.PARSE, label, System.nanoTime() - parseStart);
+                return count;
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new ConnectBinanceException("Formato inesperado en la respuesta: "
+                        + new String(buffer, 0, Math.min(length, 512), StandardCharsets.UTF_8), e);
+            }
+        } catch (InterruptedException e) {
+            breaker.release();
+            Thread.currentThread().interrupt();
+            throw new ConnectBinanceException("Error conectando a Binance", e);
+        } catch (IOException e) {
+            // Incluye los timeouts
+            breaker.recordFailure();
+            throw new ConnectBinanceException("Error conectando a Binance", e);
+        } catch (RuntimeException e) {
+            breaker.release();
+            throw e;
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    // Retry-After viene en segundos; sin ella se espera al siguiente minuto, que es cuando
+    // Binance reinicia el contador de peso
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        Optional<String> header = response.headers().firstValue("Retry-After");
+        if (header.isPresent()) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(header.get().trim()));
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        return 60000 - System.currentTimeMillis() % 60000;
+    }
+
+    // Una petición al ticker: la URL y los símbolos que lleva (null si los pide todos);
+    // las de un solo símbolo guardan además su tabla
+    private static class TickerRequest {
+        final SymbolTable table;
+        final List<String> symbols;
+        final URI uri;
+
+        TickerRequest(SymbolTable table, List<String> symbols, URI uri) {
+            this.table = table;
+            this.symbols = symbols;
+            this.uri = uri;
+        }
+    }
+
+    private static class CachedUrls {
+        final SymbolTable table;
+        final int size;
+        final List<TickerRequest> requests;
+        final long expiresAt;
+
+        CachedUrls(SymbolTable table, int size, List<TickerRequest> requests, long expiresAt) {
+            this.table = table;
+            this.size = size;
+            this.requests = requests;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
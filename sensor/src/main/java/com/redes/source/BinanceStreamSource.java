@@ -0,0 +1,280 @@
+package com.redes.source;
+
+import com.redes.metrics.Metrics;
+import com.redes.util.Loggers;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Fuente de precios sobre el combined stream WebSocket de Binance.
+// Se suscribe a <símbolo>@miniTicker (o @trade) de todos los símbolos y entrega cada
+// actualización en cuanto llega. Si la conexión se cae o deja de recibir datos se
+// reconecta con espera exponencial (con jitter) y vuelve a suscribirse. Los símbolos
+// pueden cambiarse en marcha (setSymbols) sin cortar la conexión.
+public class BinanceStreamSource {
+    public static final String DEFAULT_BASE_URL = "wss://stream.binance.com:9443";
+
+    private static final Logger logger = Loggers.getLogger(BinanceStreamSource.class);
+
+    private static final long MIN_RECONNECT_DELAY = 1000;
+    private static final long MAX_RECONNECT_DELAY = 60000;
+
+    public interface Sink {
+        void deliver(String symbol, double price, long timestamp);
+    }
+
+    private final URI uri;
+    private final String streamType;
+    private List<String> streams;
+    // Último envío por el WebSocket: no puede haber dos sendText a la vez
+    private CompletableFuture<WebSocket> lastSend = CompletableFuture.completedFuture(null);
+    private final Sink sink;
+    private final Duration staleTimeout;
+    private final HttpClient httpClient;
+    // Hilo no demonio: mantiene vivo el proceso mientras el stream esté activo
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r ->
+            new Thread(r, "binance-stream"));
+    private final AtomicInteger requestIds = new AtomicInteger();
+
+    private volatile WebSocket webSocket;
+    private volatile long lastMessage;
+    private volatile boolean stopped;
+    private int reconnectAttempts;
+
+    // streamType es "miniTicker" o "trade"
+    public BinanceStreamSource(String baseUrl, Collection<String> symbols, String streamType,
+            Duration connectTimeout, Duration staleTimeout, Sink sink) {
+        this.uri = URI.create(baseUrl + "/stream");
+        this.streamType = streamType;
+        this.streams = streamsFor(symbols);
+        this.sink = sink;
+        this.staleTimeout = staleTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    public void start() {
+        connect();
+
+        // Vigilar que sigan llegando datos; una conexión muda se da por perdida
+        long period = Math.max(1000, staleTimeout.toMillis() / 2);
+        scheduler.scheduleAtFixedRate(() -> {
+            WebSocket current = webSocket;
+            if (current != null && System.currentTimeMillis() - lastMessage > staleTimeout.toMillis()) {
+                logger.warning("Sin datos del stream de Binance; forzando reconexión");
+                current.abort();
+                onDisconnected(current);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        stopped = true;
+        scheduler.shutdownNow();
+        WebSocket current = webSocket;
+        if (current != null) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "").exceptionally(e -> null);
+        }
+    }
+
+    // Suscribirse a los símbolos nuevos y darse de baja de los que ya no están
+    public synchronized void setSymbols(Collection<String> symbols) {
+        List<String> updated = streamsFor(symbols);
+        List<String> added = new ArrayList<>(updated);
+        added.removeAll(streams);
+        List<String> removed = new ArrayList<>(streams);
+        removed.removeAll(updated);
+        streams = updated;
+
+        WebSocket current = webSocket;
+        if (current != null) {
+            send(current, "UNSUBSCRIBE", removed);
+            send(current, "SUBSCRIBE", added);
+            logger.log(Level.INFO, "Streams de Binance: +{0}, -{1}", new Object[] { added.size(), removed.size() });
+        }
+    }
+
+    public boolean isConnected() {
+        WebSocket current = webSocket;
+        return current != null && !current.isInputClosed() && !current.isOutputClosed();
+    }
+
+    private void connect() {
+        if (stopped) {
+            return;
+        }
+        logger.log(Level.INFO, "Conectando al stream de Binance en {0}", uri);
+        httpClient.newWebSocketBuilder()
+                .buildAsync(uri, new Listener())
+                .whenComplete((ws, error) -> {
+                    if (error != null) {
+                        logger.log(Level.WARNING, "No se pudo conectar al stream de Binance: {0}", error.getMessage());
+                        scheduleReconnect();
+                    }
+                });
+    }
+
+    // Se llama una sola vez por conexión perdida; los avisos tardíos de una conexión
+    // anterior (abortada por el vigilante) no tocan la actual
+    private synchronized void onDisconnected(WebSocket ws) {
+        if (ws != webSocket) {
+            return;
+        }
+        webSocket = null;
+        scheduleReconnect();
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (stopped) {
+            return;
+        }
+        long delay = Backoff.delay(MIN_RECONNECT_DELAY, MAX_RECONNECT_DELAY, reconnectAttempts++);
+        logger.log(Level.INFO, "Reconectando al stream de Binance en {0} ms", delay);
+        try {
+            scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignore) {
+        }
+    }
+
+    private synchronized void onConnected(WebSocket ws) {
+        webSocket = ws;
+        lastMessage = System.currentTimeMillis();
+        reconnectAttempts = 0;
+
+        // Suscribirse (también tras cada reconexión)
+        lastSend = CompletableFuture.completedFuture(ws);
+        send(ws, "SUBSCRIBE", streams);
+        logger.log(Level.INFO, "Suscrito a {0} streams de Binance", streams.size());
+    }
+
+    // Enviar SUBSCRIBE o UNSUBSCRIBE detrás del envío anterior
+    private synchronized void send(WebSocket ws, String method, List<String> streams) {
+        if (streams.isEmpty()) {
+            return;
+        }
+        StringBuilder params = new StringBuilder();
+        for (String stream : streams) {
+            if (params.length() > 0) {
+                params.append(',');
+            }
+            params.append('"').append(stream).append('"');
+        }
+        String request = String.format("{\"method\":\"%s\",\"params\":[%s],\"id\":%d}",
+                method, params, requestIds.incrementAndGet());
+        lastSend = lastSend.exceptionally(e -> null)
+                .thenCompose(previous -> ws.sendText(request, true))
+                .whenComplete((sent, error) -> {
+                    if (error != null) {
+                        logger.log(Level.WARNING, "No se pudo enviar {0} al stream de Binance: {1}",
+                                new Object[] { method, error.getMessage() });
+                    }
+                });
+    }
+
+    private List<String> streamsFor(Collection<String> symbols) {
+        List<String> result = new ArrayList<>();
+        for (String symbol : symbols) {
+            result.add(symbol.trim().toLowerCase(Locale.ROOT) + "@" + streamType);
+        }
+        return result;
+    }
+
+    // Extraer símbolo, precio y hora de un mensaje del combined stream
+    private void handleMessage(String text) {
+        long start = System.nanoTime();
+        JsonObject message;
+        try {
+            message = JsonParser.parseString(text).getAsJsonObject();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Mensaje del stream no reconocido: {0}", text);
+            return;
+        }
+
+        // Respuestas a SUBSCRIBE: {"result":null,"id":1}
+        JsonElement data = message.get("data");
+        if (data == null || !data.isJsonObject()) {
+            return;
+        }
+
+        JsonObject event = data.getAsJsonObject();
+        JsonElement symbol = event.get("s");
+        // miniTicker trae el último precio en "c"; trade lo trae en "p"
+        JsonElement price = event.has("c") ? event.get("c") : event.get("p");
+        JsonElement time = event.has("T") ? event.get("T") : event.get("E");
+        if (symbol == null || price == null) {
+            return;
+        }
+
+        try {
+            long timestamp = time != null ? time.getAsLong() : System.currentTimeMillis();
+            double value = Double.parseDouble(price.getAsString());
+            Metrics.recordLatency(Metrics.PARSE, symbol.getAsString(), System.nanoTime() - start);
+            sink.deliver(symbol.getAsString(), value, timestamp);
+        } catch (NumberFormatException nfe) {
+            logger.log(Level.WARNING, "No se pudo convertir el precio del stream: {0}", text);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Error procesando precio de " + symbol.getAsString(), e);
+        }
+    }
+
+    private class Listener implements WebSocket.Listener {
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public void onOpen(WebSocket ws) {
+            onConnected(ws);
+            ws.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+            if (ws != webSocket) {
+                // Conexión ya sustituida: se cierra en lugar de entregar precios duplicados
+                ws.abort();
+                return null;
+            }
+            lastMessage = System.currentTimeMillis();
+            buffer.append(data);
+            if (last) {
+                String text = buffer.toString();
+                buffer.setLength(0);
+                handleMessage(text);
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onPing(WebSocket ws, ByteBuffer message) {
+            lastMessage = System.currentTimeMillis();
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+            logger.log(Level.WARNING, "Stream de Binance cerrado ({0}): {1}", new Object[] { statusCode, reason });
+            onDisconnected(ws);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            logger.log(Level.WARNING, "Error en el stream de Binance: {0}", error.getMessage());
+            onDisconnected(ws);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.redes.source;
+
+import com.redes.util.Loggers;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Cortacircuitos para las peticiones a Binance.
+// - Cerrado: las peticiones pasan; failureThreshold fallos seguidos lo abren.
+// - Abierto: no pasa ninguna petición hasta que vence la espera, que crece de forma
+//   exponencial con jitter en cada apertura seguida (o la que pida Binance con Retry-After).
+// - Semiabierto: pasa una única petición de prueba; si sale bien se cierra y si falla
+//   se vuelve a abrir con una espera mayor.
+public class CircuitBreaker {
+    private static final Logger logger = Loggers.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private int trips;
+    private long openUntil;
+    private boolean probing;
+
+    public CircuitBreaker(int failureThreshold, long baseDelayMillis, long maxDelayMillis) {
+        this.failureThreshold = failureThreshold;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    // ¿Puede salir una petición? Tras un true hay que informar del resultado con
+    // recordSuccess, recordFailure, recordRateLimited o release
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = false;
+                logger.info("Circuito de Binance semiabierto; enviando petición de prueba");
+                return tryProbe();
+            default:
+                return tryProbe();
+        }
+    }
+
+    // Semiabierto: solo una petición de prueba a la vez
+    private boolean tryProbe() {
+        if (probing) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Binance responde de nuevo; circuito cerrado");
+        }
+        state = State.CLOSED;
+        failures = 0;
+        trips = 0;
+        probing = false;
+    }
+
+    public synchronized void recordFailure() {
+        probing = false;
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            open(0);
+        }
+    }
+
+    // Binance nos ha limitado: abrir ya, al menos durante lo que pide
+    public synchronized void recordRateLimited(long retryAfterMillis) {
+        probing = false;
+        open(retryAfterMillis);
+    }
+
+    // La petición autorizada no llegó a salir
+    public synchronized void release() {
+        probing = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getRemainingOpenMillis() {
+        return state == State.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+    }
+
+    private void open(long minDelayMillis) {
+        long delay = Math.max(minDelayMillis, Backoff.delay(baseDelayMillis, maxDelayMillis, trips++));
+        openUntil = Math.max(openUntil, System.currentTimeMillis() + delay);
+        state = State.OPEN;
+        failures = 0;
+        logger.log(Level.WARNING, "Circuito de Binance abierto durante {0} ms", delay);
+    }
+}
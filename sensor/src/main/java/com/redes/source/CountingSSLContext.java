@@ -0,0 +1,82 @@
+package com.redes.source;
+
+import javax.net.ssl.*;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// SSLContext que delega en otro y cuenta cuántos SSLEngine se crean.
+// HttpClient crea un SSLEngine por cada conexión TLS nueva, así que el contador
+// equivale al número de handshakes realizados.
+class CountingSSLContext extends SSLContext {
+    private final LongAdder engines;
+
+    private CountingSSLContext(CountingSpi spi, SSLContext delegate) {
+        super(spi, delegate.getProvider(), delegate.getProtocol());
+        this.engines = spi.engines;
+    }
+
+    static CountingSSLContext wrap(SSLContext delegate) {
+        return new CountingSSLContext(new CountingSpi(delegate), delegate);
+    }
+
+    long getEngineCount() {
+        return engines.sum();
+    }
+
+    private static class CountingSpi extends SSLContextSpi {
+        private final SSLContext delegate;
+        private final LongAdder engines = new LongAdder();
+
+        CountingSpi(SSLContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+            delegate.init(km, tm, sr);
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            engines.increment();
+            return delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            engines.increment();
+            return delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.redes.source;
+
+import java.util.Arrays;
+
+// Últimos precios de un tick en arreglos primitivos indexados por SymbolTable.
+// Los precios van en punto fijo (ver FixedPoint); una hora a 0 indica que el símbolo
+// no trae precio en este tick.
+public class PriceBook {
+    private long[] prices;
+    private long[] timestamps;
+
+    public PriceBook(int capacity) {
+        prices = new long[Math.max(1, capacity)];
+        timestamps = new long[Math.max(1, capacity)];
+    }
+
+    public void clear() {
+        Arrays.fill(timestamps, 0);
+    }
+
+    public void set(int id, long scaledPrice, long timestamp) {
+        if (id >= prices.length) {
+            int capacity = Math.max(id + 1, prices.length * 2);
+            prices = Arrays.copyOf(prices, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+        prices[id] = scaledPrice;
+        timestamps[id] = timestamp;
+    }
+
+    public boolean has(int id) {
+        return id < timestamps.length && timestamps[id] != 0;
+    }
+
+    public long price(int id) {
+        return prices[id];
+    }
+
+    public long timestamp(int id) {
+        return timestamps[id];
+    }
+}
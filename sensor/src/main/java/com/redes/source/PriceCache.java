@@ -0,0 +1,177 @@
+package com.redes.source;
+
+import com.redes.ConnectBinanceException;
+import com.redes.codec.FixedPoint;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Caché de precios delante de BinancePriceSource.
+// - Un precio más reciente que maxAge se sirve sin ir a Binance.
+// - Pasado maxAge y hasta maxAge + staleWindow se sirve el precio viejo y se refresca en
+//   segundo plano (stale-while-revalidate). El tick no lo usa (getFreshPrice): publicaría
+//   el precio del intervalo anterior como si fuera de ahora.
+// - Varias peticiones simultáneas del mismo símbolo comparten una sola petición a Binance.
+// - Como mucho guarda maxEntries símbolos; se descarta el usado hace más tiempo.
+// Los precios que trae el tick por lotes (fetchInto) también quedan en la caché.
+public class PriceCache {
+    private final BinancePriceSource source;
+    private final long maxAgeMillis;
+    private final long staleWindowMillis;
+
+    private final Map<String, Entry> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<Double>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PriceCache(BinancePriceSource source, long maxAgeMillis, long staleWindowMillis, int maxEntries) {
+        this.source = source;
+        this.maxAgeMillis = maxAgeMillis;
+        this.staleWindowMillis = staleWindowMillis;
+        // LinkedHashMap en orden de acceso: el primero es el menos usado
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public BinancePriceSource getSource() {
+        return source;
+    }
+
+    // Precio de un símbolo, desde la caché si es posible
+    public double getPrice(String symbol) throws ConnectBinanceException {
+        return getPrice(symbol, true);
+    }
+
+    // Precio de hace como mucho maxAge: pasado ese tiempo se espera a Binance en lugar de
+    // servir el viejo
+    public double getFreshPrice(String symbol) throws ConnectBinanceException {
+        return getPrice(symbol, false);
+    }
+
+    private double getPrice(String symbol, boolean allowStale) throws ConnectBinanceException {
+        if (symbol == null || symbol.trim().isEmpty()) {
+            throw new ConnectBinanceException("Símbolo inválido: " + symbol);
+        }
+        String key = symbol.trim().toUpperCase(Locale.ROOT);
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.fetchedAt;
+            if (age <= maxAgeMillis) {
+                hits.increment();
+                return entry.price;
+            }
+            if (allowStale && age <= maxAgeMillis + staleWindowMillis) {
+                staleHits.increment();
+                refreshInBackground(key);
+                return entry.price;
+            }
+        }
+
+        // Sin precio válido: unirse a la petición en curso o lanzarla
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        CompletableFuture<Double> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        misses.increment();
+        return load(key, mine);
+    }
+
+    // Tick por lotes: se pasa tal cual a la fuente y los precios obtenidos se guardan
+    public int fetchInto(SymbolTable table, PriceBook book) throws ConnectBinanceException {
+        int count = source.fetchInto(table, book);
+        synchronized (entries) {
+            for (int id = 0; id < table.size(); id++) {
+                if (book.has(id)) {
+                    entries.put(table.symbol(id), new Entry(FixedPoint.toDouble(book.price(id)), book.timestamp(id)));
+                }
+            }
+        }
+        return count;
+    }
+
+    public String getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return String.format("aciertos=%d, aciertos caducados=%d, fallos=%d, agrupadas=%d, descartadas=%d, entradas=%d",
+                hits.sum(), staleHits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), size);
+    }
+
+    private void refreshInBackground(String key) {
+        CompletableFuture<Double> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return;
+        }
+        Thread.ofVirtual().name("cache-" + key).start(() -> {
+            try {
+                load(key, mine);
+            } catch (ConnectBinanceException ignore) {
+                // Se sigue sirviendo el precio viejo hasta que caduque del todo
+            }
+        });
+    }
+
+    private double load(String key, CompletableFuture<Double> future) throws ConnectBinanceException {
+        try {
+            double price = source.getPrice(key);
+            synchronized (entries) {
+                entries.put(key, new Entry(price, System.currentTimeMillis()));
+            }
+            future.complete(price);
+            return price;
+        } catch (ConnectBinanceException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static double await(CompletableFuture<Double> future) throws ConnectBinanceException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectBinanceException("Error conectando a Binance", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConnectBinanceException) {
+                throw (ConnectBinanceException) e.getCause();
+            }
+            throw new ConnectBinanceException("Error conectando a Binance", e.getCause());
+        }
+    }
+
+    private static class Entry {
+        final double price;
+        final long fetchedAt;
+
+        Entry(double price, long fetchedAt) {
+            this.price = price;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
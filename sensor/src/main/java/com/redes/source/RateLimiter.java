@@ -0,0 +1,64 @@
+package com.redes.source;
+
+import java.util.concurrent.TimeUnit;
+
+// Presupuesto de peso de peticiones a Binance (token bucket).
+// Binance limita el peso usado por IP en cada minuto; cada petición gasta su peso y el
+// cubo se rellena de forma continua a razón de weightPerMinute / 60 s. Con la cabecera
+// X-MBX-USED-WEIGHT-1M el cubo se ajusta al peso que Binance dice que ya se ha usado
+// (también por otros procesos desde la misma IP), y Retry-After lo congela del todo.
+public class RateLimiter {
+    public static final int DEFAULT_WEIGHT_PER_MINUTE = 6000;
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long pausedUntil;
+
+    public RateLimiter(int weightPerMinute) {
+        this.capacity = weightPerMinute;
+        this.refillPerNano = weightPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.tokens = weightPerMinute;
+    }
+
+    // Gasta el peso si hay presupuesto y devuelve 0; si no, los ms que faltan
+    public synchronized long tryAcquire(int weight) {
+        long now = System.nanoTime();
+        if (now - pausedUntil < 0) {
+            return TimeUnit.NANOSECONDS.toMillis(pausedUntil - now) + 1;
+        }
+        refill(now);
+        if (tokens >= weight) {
+            tokens -= weight;
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis((long) ((weight - tokens) / refillPerNano)) + 1;
+    }
+
+    // Peso usado en el minuto actual según Binance
+    public synchronized void observeUsedWeight(int usedWeight) {
+        refill(System.nanoTime());
+        tokens = Math.max(0, Math.min(tokens, capacity - usedWeight));
+    }
+
+    // No gastar nada durante este tiempo (Retry-After)
+    public synchronized void pause(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = 0;
+    }
+
+    public synchronized double getAvailableWeight() {
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
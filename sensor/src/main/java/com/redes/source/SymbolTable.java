@@ -0,0 +1,110 @@
+package com.redes.source;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Asigna a cada símbolo un índice fijo (0, 1, 2...) para guardar sus datos en arreglos.
+// Las búsquedas pueden hacerse directamente sobre los bytes de una respuesta, sin crear
+// un String. Sólo se añaden símbolos; cada alta publica una copia nueva de la tabla, así
+// que las lecturas no necesitan bloqueo.
+public class SymbolTable {
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new byte[0][]);
+
+    public SymbolTable() {
+    }
+
+    public SymbolTable(Iterable<String> symbols) {
+        for (String symbol : symbols) {
+            add(symbol);
+        }
+    }
+
+    // Registrar un símbolo (si no existía) y devolver su índice
+    public synchronized int add(String symbol) {
+        String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+        Snapshot current = snapshot;
+        int existing = current.indexOf(normalized.getBytes(StandardCharsets.US_ASCII));
+        if (existing >= 0) {
+            return existing;
+        }
+
+        int id = current.symbols.length;
+        String[] symbols = Arrays.copyOf(current.symbols, id + 1);
+        byte[][] bytes = Arrays.copyOf(current.bytes, id + 1);
+        symbols[id] = normalized.intern();
+        bytes[id] = normalized.getBytes(StandardCharsets.US_ASCII);
+        snapshot = new Snapshot(symbols, bytes);
+        return id;
+    }
+
+    public int indexOf(String symbol) {
+        return snapshot.indexOf(symbol.trim().toUpperCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Índice del símbolo contenido en buffer[offset, offset + length), o -1
+    public int indexOf(byte[] buffer, int offset, int length) {
+        return snapshot.indexOf(buffer, offset, length);
+    }
+
+    public String symbol(int id) {
+        return snapshot.symbols[id];
+    }
+
+    public int size() {
+        return snapshot.symbols.length;
+    }
+
+    public List<String> symbols() {
+        return List.of(snapshot.symbols);
+    }
+
+    private static class Snapshot {
+        final String[] symbols;
+        final byte[][] bytes;
+        // Direccionamiento abierto: cada hueco guarda índice + 1 (0 = libre)
+        final int[] slots;
+
+        Snapshot(String[] symbols, byte[][] bytes) {
+            this.symbols = symbols;
+            this.bytes = bytes;
+            this.slots = new int[Math.max(16, Integer.highestOneBit(Math.max(1, symbols.length) * 4))];
+            for (int id = 0; id < bytes.length; id++) {
+                int mask = slots.length - 1;
+                int slot = hash(bytes[id], 0, bytes[id].length) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id + 1;
+            }
+        }
+
+        int indexOf(byte[] symbol) {
+            return indexOf(symbol, 0, symbol.length);
+        }
+
+        int indexOf(byte[] buffer, int offset, int length) {
+            int mask = slots.length - 1;
+            int slot = hash(buffer, offset, length) & mask;
+            while (slots[slot] != 0) {
+                int id = slots[slot] - 1;
+                if (Arrays.equals(bytes[id], 0, bytes[id].length, buffer, offset, offset + length)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        // FNV-1a
+        static int hash(byte[] buffer, int offset, int length) {
+            int hash = 0x811C9DC5;
+            for (int i = offset; i < offset + length; i++) {
+                hash ^= buffer[i];
+                hash *= 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
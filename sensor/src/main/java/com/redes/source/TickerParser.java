@@ -0,0 +1,138 @@
+package com.redes.source;
+
+import com.redes.codec.FixedPoint;
+
+// Lector de las respuestas de /api/v3/ticker/price que trabaja directamente sobre los bytes:
+//
+//   [{"symbol":"BTCUSDT","price":"43000.12000000"},...]   o   {"symbol":...,"price":...}
+//
+// Cada precio se convierte a punto fijo y se guarda en el PriceBook bajo el índice que su
+// símbolo tiene en la SymbolTable; los símbolos que no están en la tabla se ignoran.
+// No crea Strings ni objetos por entrada.
+public class TickerParser {
+    private static final byte[] SYMBOL = { 's', 'y', 'm', 'b', 'o', 'l' };
+    private static final byte[] PRICE = { 'p', 'r', 'i', 'c', 'e' };
+
+    private TickerParser() {
+    }
+
+    // Devuelve cuántos precios se guardaron
+    public static int parse(byte[] buffer, int length, SymbolTable table, PriceBook book, long timestamp) {
+        int count = 0;
+        int id = -1;
+        boolean hasSymbol = false;
+        long price = 0;
+        boolean hasPrice = false;
+
+        int i = 0;
+        while (i < length) {
+            byte c = buffer[i];
+            if (c == '{') {
+                hasSymbol = false;
+                hasPrice = false;
+                i++;
+            } else if (c == '}') {
+                if (hasSymbol && id >= 0 && hasPrice) {
+                    book.set(id, price, timestamp);
+                    count++;
+                }
+                hasSymbol = false;
+                hasPrice = false;
+                i++;
+            } else if (c == '"') {
+                // Clave
+                int keyStart = i + 1;
+                int keyEnd = indexOf(buffer, '"', keyStart, length);
+                i = skipWhitespace(buffer, keyEnd + 1, length);
+                if (i >= length || buffer[i] != ':') {
+                    continue;
+                }
+                i = skipWhitespace(buffer, i + 1, length);
+                if (i >= length) {
+                    break;
+                }
+
+                // Valor
+                if (buffer[i] == '"') {
+                    int valueStart = i + 1;
+                    int valueEnd = indexOf(buffer, '"', valueStart, length);
+                    i = valueEnd + 1;
+                    if (equals(buffer, keyStart, keyEnd, SYMBOL)) {
+                        id = table.indexOf(buffer, valueStart, valueEnd - valueStart);
+                        hasSymbol = true;
+                    } else if (equals(buffer, keyStart, keyEnd, PRICE)) {
+                        price = parseFixedPoint(buffer, valueStart, valueEnd);
+                        hasPrice = true;
+                    }
+                } else {
+                    while (i < length && buffer[i] != ',' && buffer[i] != '}' && buffer[i] != ']') {
+                        i++;
+                    }
+                }
+            } else {
+                i++;
+            }
+        }
+        return count;
+    }
+
+    // "43000.12000000" -> 4300012000000 (8 decimales implícitos); los decimales de más se truncan
+    public static long parseFixedPoint(byte[] buffer, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Precio vacío");
+        }
+        boolean negative = buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+
+        long integer = 0;
+        for (; i < end && buffer[i] != '.'; i++) {
+            integer = integer * 10 + digit(buffer[i]);
+        }
+
+        long fraction = 0;
+        int decimals = 0;
+        if (i < end) {
+            for (i++; i < end; i++) {
+                int d = digit(buffer[i]);
+                if (decimals < FixedPoint.DECIMALS) {
+                    fraction = fraction * 10 + d;
+                    decimals++;
+                }
+            }
+        }
+        for (; decimals < FixedPoint.DECIMALS; decimals++) {
+            fraction *= 10;
+        }
+
+        long scaled = Math.addExact(Math.multiplyExact(integer, FixedPoint.SCALE), fraction);
+        return negative ? -scaled : scaled;
+    }
+
+    private static int digit(byte b) {
+        if (b < '0' || b > '9') {
+            throw new NumberFormatException("Carácter no numérico en el precio: " + (char) b);
+        }
+        return b - '0';
+    }
+
+    private static int indexOf(byte[] buffer, char c, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (buffer[i] == c) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static int skipWhitespace(byte[] buffer, int from, int length) {
+        int i = from;
+        while (i < length && (buffer[i] == ' ' || buffer[i] == '\n' || buffer[i] == '\r' || buffer[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean equals(byte[] buffer, int start, int end, byte[] expected) {
+        return java.util.Arrays.equals(buffer, start, end, expected, 0, expected.length);
+    }
+}
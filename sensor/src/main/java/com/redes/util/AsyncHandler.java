@@ -0,0 +1,135 @@
+package com.redes.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+// Handler asíncrono: los hilos que registran sólo dejan el LogRecord en un buffer circular
+// y vuelven; un hilo de fondo los formatea y los escribe en la consola. Si el buffer está
+// lleno el registro se descarta (y se cuenta) en lugar de bloquear al que registra.
+public class AsyncHandler extends Handler {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final AtomicReferenceArray<LogRecord> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    private final Writer out;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // capacity se redondea a la siguiente potencia de dos
+    public AsyncHandler(int capacity) {
+        this(capacity, new OutputStreamWriter(new FileOutputStream(FileDescriptor.err), StandardCharsets.UTF_8));
+    }
+
+    public AsyncHandler(int capacity, Writer out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.out = new BufferedWriter(out, 16 * 1024);
+
+        writer = new Thread(this::drainLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+
+        // Reservar un hueco; si el buffer está lleno se descarta
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head.get() >= ring.length()) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+
+        ring.set((int) (slot & mask), record);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // Esperar a que el hilo de fondo haya escrito todo lo pendiente
+    @Override
+    public void flush() {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (head.get() < target && writer.isAlive() && System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        long reportedDrops = 0;
+        while (true) {
+            long current = head.get();
+            if (current == tail.get()) {
+                // Vacío: volcar lo escrito y esperar
+                try {
+                    long drops = dropped.sum();
+                    if (drops > reportedDrops) {
+                        out.write("[log] " + (drops - reportedDrops) + " registros descartados" + System.lineSeparator());
+                        reportedDrops = drops;
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    reportError(null, e, ErrorManager.FLUSH_FAILURE);
+                }
+                if (closed) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            // El productor ya reservó el hueco pero puede que aún no haya escrito el registro
+            int index = (int) (current & mask);
+            LogRecord record = ring.get(index);
+            if (record == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            ring.set(index, null);
+            head.set(current + 1);
+
+            try {
+                out.write(getFormatter().format(record));
+            } catch (Exception e) {
+                reportError(null, e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+}
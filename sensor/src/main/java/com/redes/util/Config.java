@@ -2,6 +2,8 @@ package com.redes.util;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 public class Config {
@@ -19,10 +21,40 @@ public class Config {
         return properties.getProperty(key);
     }
 
+    public String getString(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
     public int getInt(String key) {
         return Integer.parseInt(properties.getProperty(key));
     }
 
+    public int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    // Claves que empiezan por el prefijo dado, sin el prefijo
+    public Map<String, String> getSubset(String prefix) {
+        Map<String, String> subset = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                subset.put(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        return subset;
+    }
+
     public String[] getArray(String key) {
         return properties.getProperty(key).split(",");
     }
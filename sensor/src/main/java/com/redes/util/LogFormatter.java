@@ -1,12 +1,16 @@
 package com.redes.util;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
 
+// Formato de consola con colores. Es seguro entre hilos: la fecha se formatea una vez
+// por segundo y se comparte, y cada hilo arma la línea en su propio StringBuilder.
 public class LogFormatter extends Formatter {
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
 
     // Colores ANSI
     private static final String RESET = "\u001B[0m";
@@ -15,9 +19,18 @@ public class LogFormatter extends Formatter {
     private static final String YELLOW = "\u001B[33m";
     private static final String BLUE = "\u001B[34m";
 
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(Long.MIN_VALUE, "");
+
     @Override
     public String format(LogRecord record) {
-        String timestamp = String.format("%s[%s]%s", GRAY, sdf.format(new Date(record.getMillis())), RESET);
+        StringBuilder line = builders.get();
+        line.setLength(0);
+
+        line.append(GRAY).append('[').append(timestamp(record.getMillis())).append(']').append(RESET).append(' ');
+
         String levelColor;
         switch (record.getLevel().getName()) {
             case "SEVERE":
@@ -32,8 +45,66 @@ public class LogFormatter extends Formatter {
             default:
                 levelColor = RESET;
         }
-        String level = String.format("%s%s%s", levelColor, record.getLevel().getName(), RESET);
+        line.append(levelColor).append(record.getLevel().getName()).append(RESET).append(": ");
+
+        appendMessage(record, line);
+        if (record.getThrown() != null) {
+            line.append(" (").append(record.getThrown()).append(')');
+        }
+        line.append(NEWLINE);
+
+        String result = line.toString();
+        if (line.capacity() > 4096) {
+            builders.remove();
+        }
+        return result;
+    }
+
+    // Fecha de la línea; sólo se vuelve a formatear cuando cambia el segundo
+    private String timestamp(long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.second != second) {
+            cached = new CachedTimestamp(second, DATE_FORMAT.format(Instant.ofEpochSecond(second)));
+            cachedTimestamp = cached;
+        }
+        return cached.text;
+    }
+
+    // Sustituir {0}, {1}... directamente en la línea, sin pasar por MessageFormat
+    private static void appendMessage(LogRecord record, StringBuilder line) {
+        String message = record.getMessage();
+        Object[] parameters = record.getParameters();
+        if (message == null) {
+            return;
+        }
+        if (parameters == null || parameters.length == 0 || message.indexOf('{') == -1) {
+            line.append(message);
+            return;
+        }
 
-        return String.format("%s %s: %s%n", timestamp, level, formatMessage(record));
+        int length = message.length();
+        for (int i = 0; i < length; i++) {
+            char c = message.charAt(i);
+            if (c == '{' && i + 2 < length && message.charAt(i + 2) == '}' && Character.isDigit(message.charAt(i + 1))) {
+                int index = message.charAt(i + 1) - '0';
+                if (index < parameters.length) {
+                    line.append(parameters[index]);
+                    i += 2;
+                    continue;
+                }
+            }
+            line.append(c);
+        }
+    }
+
+    private static class CachedTimestamp {
+        final long second;
+        final String text;
+
+        CachedTimestamp(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.redes.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Muestreo de líneas de log repetitivas: por cada clave (p. ej. el símbolo) deja pasar
+// una línea por intervalo y cuenta las que se saltaron entre medias.
+public class LogSampler {
+    private final long intervalMillis;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    // Con intervalo 0 se registra todo
+    public LogSampler(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    // -1 si la línea se omite; si no, cuántas se omitieron desde la última registrada
+    public long sample(String key) {
+        if (intervalMillis <= 0) {
+            return 0;
+        }
+        Window window = windows.computeIfAbsent(key, k -> new Window());
+        long now = System.currentTimeMillis();
+        long last = window.lastLogged.get();
+        if (now - last >= intervalMillis && window.lastLogged.compareAndSet(last, now)) {
+            return window.skipped.getAndSet(0);
+        }
+        window.skipped.incrementAndGet();
+        return -1;
+    }
+
+    private static class Window {
+        final AtomicLong lastLogged = new AtomicLong(Long.MIN_VALUE / 2);
+        final AtomicLong skipped = new AtomicLong();
+    }
+}
@@ -0,0 +1,46 @@
+package com.redes.util;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class Loggers {
+    private static final int BUFFER_SIZE = 8192;
+
+    // Un único handler asíncrono para todos los loggers del sensor
+    private static final AsyncHandler HANDLER = new AsyncHandler(BUFFER_SIZE);
+    static {
+        HANDLER.setFormatter(new LogFormatter());
+        HANDLER.setLevel(Level.ALL);
+    }
+
+    private static volatile long sampleInterval = 10000;
+
+    private Loggers() {
+    }
+
+    // Logger con salida por consola y el formato de colores del proyecto
+    public static Logger getLogger(Class<?> clazz) {
+        Logger logger = Logger.getLogger(clazz.getName());
+        synchronized (logger) {
+            if (logger.getHandlers().length == 0) {
+                logger.addHandler(HANDLER);
+                logger.setUseParentHandlers(false);
+                logger.setLevel(Level.ALL);
+            }
+        }
+        return logger;
+    }
+
+    public static AsyncHandler getHandler() {
+        return HANDLER;
+    }
+
+    // Intervalo de muestreo de las líneas INFO que se repiten por símbolo
+    public static void setSampleInterval(long millis) {
+        sampleInterval = millis;
+    }
+
+    public static LogSampler newSampler() {
+        return new LogSampler(sampleInterval);
+    }
+}
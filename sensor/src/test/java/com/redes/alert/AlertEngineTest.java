@@ -0,0 +1,47 @@
+package com.redes.alert;
+
+import com.redes.codec.FixedPoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertEngineTest {
+    private final List<String> delivered = new ArrayList<>();
+    private final AlertEngine engine = new AlertEngine(0.5, (monitorId, symbol, above, threshold, price, timestamp) ->
+            delivered.add(monitorId + (above ? " A " : " C ") + FixedPoint.toDouble(threshold)));
+
+    @Test
+    void twoButtonsOnTheSameSymbolBothAlert() {
+        // btcusdt y BTCUSDT se normalizan al mismo símbolo: los dos umbrales deben seguir vivos
+        engine.setThresholds("monitor01", Map.of(
+                "btcusdt", List.of(FixedPoint.fromDouble(100)),
+                "BTCUSDT", List.of(FixedPoint.fromDouble(200))));
+        assertEquals(2, engine.getSubscriptionCount());
+
+        engine.onPrice("BTCUSDT", FixedPoint.fromDouble(50), 1);
+        engine.onPrice("BTCUSDT", FixedPoint.fromDouble(150), 2);
+        engine.onPrice("BTCUSDT", FixedPoint.fromDouble(250), 3);
+        assertEquals(List.of("monitor01 A 100.0", "monitor01 A 200.0"), delivered);
+    }
+
+    @Test
+    void unchangedThresholdKeepsItsState() {
+        engine.setThresholds("monitor01", Map.of("BTCUSDT", List.of(FixedPoint.fromDouble(100))));
+        engine.onPrice("BTCUSDT", FixedPoint.fromDouble(150), 1);
+
+        // Se añade un segundo botón; el primero ya saltó y no vuelve a avisar
+        engine.setThresholds("monitor01", Map.of("BTCUSDT",
+                List.of(FixedPoint.fromDouble(100), FixedPoint.fromDouble(300))));
+        engine.onPrice("BTCUSDT", FixedPoint.fromDouble(151), 2);
+        engine.onPrice("BTCUSDT", FixedPoint.fromDouble(310), 3);
+        assertEquals(List.of("monitor01 A 100.0", "monitor01 A 300.0"), delivered);
+
+        engine.removeMonitor("monitor01");
+        assertEquals(0, engine.getSubscriptionCount());
+    }
+}
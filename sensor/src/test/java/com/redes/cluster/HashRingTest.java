@@ -0,0 +1,69 @@
+package com.redes.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+    private static final int REPLICAS = 128;
+
+    @Test
+    void sameMembersGiveSameOwnerInAnyOrder() {
+        HashRing ring = new HashRing(List.of("nodo-a", "nodo-b", "nodo-c"), REPLICAS);
+        HashRing shuffled = new HashRing(List.of("nodo-c", "nodo-a", "nodo-b"), REPLICAS);
+        for (String symbol : symbols(2000)) {
+            assertEquals(ring.ownerOf(symbol), shuffled.ownerOf(symbol), symbol);
+        }
+    }
+
+    @Test
+    void hashIsFixed() {
+        // FNV-1a de 64 bits con fmix64, calculado fuera de Java: todos los nodos deben
+        // obtener lo mismo
+        assertEquals(0xEFD01F60BA992926L, HashRing.hash(""));
+        assertEquals(0x094E13C8BECA0692L, HashRing.hash("BTCUSDT"));
+    }
+
+    @Test
+    void joinMovesAboutOneNthOfTheSymbols() {
+        List<String> symbols = symbols(10_000);
+        List<String> members = new ArrayList<>(List.of("nodo-a", "nodo-b", "nodo-c"));
+        HashRing before = new HashRing(members, REPLICAS);
+        members.add("nodo-d");
+        HashRing after = new HashRing(members, REPLICAS);
+
+        int moved = 0;
+        Map<String, Integer> owned = new HashMap<>();
+        for (String symbol : symbols) {
+            String owner = after.ownerOf(symbol);
+            owned.merge(owner, 1, Integer::sum);
+            if (!owner.equals(before.ownerOf(symbol))) {
+                // Sólo pasan al nodo nuevo; entre los antiguos no se mueve nada
+                assertEquals("nodo-d", owner, symbol);
+                moved++;
+            }
+        }
+        // 1/4 del total, con margen para el reparto de los nodos virtuales
+        double share = (double) moved / symbols.size();
+        assertTrue(share > 0.15 && share < 0.35, "movidos: " + share);
+        assertEquals(4, owned.size());
+    }
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertNull(new HashRing(List.of(), REPLICAS).ownerOf("BTCUSDT"));
+    }
+
+    private static List<String> symbols(int count) {
+        List<String> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            symbols.add("SYM" + i + "USDT");
+        }
+        return symbols;
+    }
+}
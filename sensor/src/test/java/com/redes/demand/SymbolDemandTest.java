@@ -0,0 +1,105 @@
+package com.redes.demand;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolDemandTest {
+    private static final long IDLE = 60_000;
+
+    private final List<Set<String>> published = new ArrayList<>();
+
+    @Test
+    void invalidSymbolNeverReachesTheFetchSet() {
+        SymbolDemand demand = new SymbolDemand(List.of("BTCUSDT"), IDLE, published::add);
+        demand.setValidator(symbol -> !symbol.equals("BTCUSTD"));
+
+        demand.onConfiguration("monitor01", Map.of("BTCUSTD", List.of(1L), "ETHUSDT", List.of(1L)));
+        assertEquals(Set.of("BTCUSDT", "ETHUSDT"), demand.getActiveSymbols());
+        assertTrue(demand.getStats().contains("no válidos=1"), demand.getStats());
+    }
+
+    @Test
+    void rejectedSymbolIsDroppedAtOnce() {
+        SymbolDemand demand = new SymbolDemand(List.of(), IDLE, published::add);
+        demand.onConfiguration("monitor01", Map.of("BTCUSTD", List.of(1L), "ETHUSDT", List.of(1L)));
+        demand.onConfiguration("monitor02", Map.of("BTCUSTD", List.of(1L)));
+        assertEquals(Set.of("BTCUSTD", "ETHUSDT"), demand.getActiveSymbols());
+
+        // Sin esperar a idleMillis, aunque los monitores lo sigan mostrando
+        demand.remove("BTCUSTD");
+        assertEquals(Set.of("ETHUSDT"), demand.getActiveSymbols());
+        assertEquals(Set.of("ETHUSDT"), published.get(published.size() - 1));
+        assertTrue(demand.getStats().contains("monitores=1"), demand.getStats());
+    }
+
+    @Test
+    void sharedSymbolStaysWhileAnyMonitorShowsIt() {
+        SymbolDemand demand = new SymbolDemand(List.of(), IDLE, published::add);
+        demand.onConfiguration("monitor01", Map.of("BTCUSDT", List.of(1L), "ETHUSDT", List.of(1L)));
+        demand.onConfiguration("monitor02", Map.of("BTCUSDT", List.of(1L)));
+
+        // monitor01 cambia BTCUSDT por SOLUSDT; monitor02 lo sigue mostrando
+        demand.onConfiguration("monitor01", Map.of("SOLUSDT", List.of(1L), "ETHUSDT", List.of(1L)));
+        demand.evictIdle(System.currentTimeMillis() + IDLE);
+        assertEquals(Set.of("BTCUSDT", "ETHUSDT", "SOLUSDT"), demand.getActiveSymbols());
+        assertTrue(demand.getStats().contains("sin referencias=0"), demand.getStats());
+    }
+
+    @Test
+    void releasedSymbolIsEvictedOnlyAfterIdleMillis() {
+        SymbolDemand demand = new SymbolDemand(List.of(), IDLE, published::add);
+        demand.onConfiguration("monitor01", Map.of("BTCUSDT", List.of(1L), "ETHUSDT", List.of(1L)));
+        long released = System.currentTimeMillis();
+        demand.onConfiguration("monitor01", Map.of("ETHUSDT", List.of(1L)));
+
+        // Sin referencias pero aún dentro de idleMillis: se sigue obteniendo
+        assertEquals(Set.of("BTCUSDT", "ETHUSDT"), demand.getActiveSymbols());
+        assertTrue(demand.getStats().contains("sin referencias=1"), demand.getStats());
+        demand.evictIdle(released + IDLE / 2);
+        assertEquals(Set.of("BTCUSDT", "ETHUSDT"), demand.getActiveSymbols());
+
+        demand.evictIdle(System.currentTimeMillis() + IDLE);
+        assertEquals(Set.of("ETHUSDT"), demand.getActiveSymbols());
+        assertEquals(Set.of("ETHUSDT"), published.get(published.size() - 1));
+        assertTrue(demand.getStats().contains("retirados=1"), demand.getStats());
+    }
+
+    @Test
+    void symbolShownAgainBeforeEvictionIsKept() {
+        SymbolDemand demand = new SymbolDemand(List.of(), IDLE, published::add);
+        demand.onConfiguration("monitor01", Map.of("BTCUSDT", List.of(1L)));
+        demand.onConfiguration("monitor01", Map.of("ETHUSDT", List.of(1L)));
+        demand.onConfiguration("monitor01", Map.of("BTCUSDT", List.of(1L)));
+
+        demand.evictIdle(System.currentTimeMillis() + IDLE);
+        assertEquals(Set.of("BTCUSDT"), demand.getActiveSymbols());
+    }
+
+    @Test
+    void pinnedSymbolsAreNeverEvicted() {
+        SymbolDemand demand = new SymbolDemand(List.of("btcusdt"), IDLE, published::add);
+        demand.onConfiguration("monitor01", Map.of("BTCUSDT", List.of(1L), "ETHUSDT", List.of(1L)));
+        demand.onRemoved("monitor01");
+
+        demand.evictIdle(System.currentTimeMillis() + IDLE);
+        assertEquals(Set.of("BTCUSDT"), demand.getActiveSymbols());
+    }
+
+    @Test
+    void removedMonitorReleasesAllItsSymbols() {
+        SymbolDemand demand = new SymbolDemand(List.of(), IDLE, published::add);
+        demand.onConfiguration("monitor01", Map.of("BTCUSDT", List.of(1L), "ETHUSDT", List.of(1L)));
+        demand.onConfiguration("monitor02", Map.of("ETHUSDT", List.of(1L)));
+        demand.onRemoved("monitor01");
+
+        assertTrue(demand.getStats().contains("monitores=1, sin referencias=1"), demand.getStats());
+        demand.evictIdle(System.currentTimeMillis() + IDLE);
+        assertEquals(Set.of("ETHUSDT"), demand.getActiveSymbols());
+    }
+}
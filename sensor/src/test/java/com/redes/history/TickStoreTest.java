@@ -0,0 +1,127 @@
+package com.redes.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickStoreTest {
+    // Medianoche UTC del 1 de enero de 2024; segmentos de 2 filas para que crezcan enseguida
+    private static final long MIDNIGHT = 1_704_067_200_000L;
+    private static final int CAPACITY = 2;
+    private static final String SYMBOL = "BTCUSDT";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ticksSurviveReopenAcrossGrowthAndMidnight() throws IOException {
+        TickStore store = open();
+        long[] times = { MIDNIGHT - 3000, MIDNIGHT - 2000, MIDNIGHT - 1000, MIDNIGHT + 1000, MIDNIGHT + 2000,
+                MIDNIGHT + 61_000 };
+        for (int i = 0; i < times.length; i++) {
+            store.append(SYMBOL, times[i], 100 + i);
+        }
+        store.close();
+        assertTrue(Files.exists(directory.resolve(SYMBOL).resolve("2023-12-31.ticks")));
+        assertTrue(Files.exists(directory.resolve(SYMBOL).resolve("2024-01-01.ticks")));
+
+        TickStore reopened = open();
+        assertEquals(List.of(
+                        tick(MIDNIGHT - 3000, 100), tick(MIDNIGHT - 2000, 101), tick(MIDNIGHT - 1000, 102),
+                        tick(MIDNIGHT + 1000, 103), tick(MIDNIGHT + 2000, 104), tick(MIDNIGHT + 61_000, 105)),
+                scan(reopened, MIDNIGHT - 10_000, MIDNIGHT + 120_000));
+        // Sólo lo que cae en [from, to), aunque cruce el cambio de día
+        assertEquals(List.of(tick(MIDNIGHT - 1000, 102), tick(MIDNIGHT + 1000, 103)),
+                scan(reopened, MIDNIGHT - 1000, MIDNIGHT + 2000));
+
+        assertEquals(List.of(
+                        candle(MIDNIGHT - 60_000, 100, 102, 100, 102, 3),
+                        candle(MIDNIGHT, 103, 104, 103, 104, 2),
+                        candle(MIDNIGHT + 60_000, 105, 105, 105, 105, 1)),
+                candles(reopened, TickStore.Resolution.MINUTE, MIDNIGHT - 60_000, MIDNIGHT + 120_000));
+        assertEquals(List.of(candle(MIDNIGHT, 103, 105, 103, 105, 3)),
+                candles(reopened, TickStore.Resolution.HOUR, MIDNIGHT, MIDNIGHT + 1));
+        reopened.close();
+    }
+
+    @Test
+    void olderTickIsRejectedAfterReopen() throws IOException {
+        TickStore store = open();
+        store.append(SYMBOL, MIDNIGHT + 5000, 100);
+        store.close();
+
+        // El último tick guardado se recupera del disco antes de aceptar el primero nuevo
+        TickStore reopened = open();
+        reopened.append(SYMBOL, MIDNIGHT + 4000, 90);
+        reopened.append(SYMBOL, MIDNIGHT + 6000, 110);
+        assertTrue(reopened.getStats().contains("desordenados=1"), reopened.getStats());
+        assertEquals(List.of(tick(MIDNIGHT + 5000, 100), tick(MIDNIGHT + 6000, 110)),
+                scan(reopened, MIDNIGHT, MIDNIGHT + 60_000));
+        reopened.close();
+    }
+
+    @Test
+    void lastTickOfThePreviousDayIsRecovered() throws IOException {
+        TickStore store = open();
+        store.append(SYMBOL, MIDNIGHT - 1000, 100);
+        store.close();
+
+        TickStore reopened = open();
+        reopened.append(SYMBOL, MIDNIGHT - 2000, 90);
+        assertTrue(reopened.getStats().contains("desordenados=1"), reopened.getStats());
+        assertFalse(Files.exists(directory.resolve(SYMBOL).resolve("2024-01-01.ticks")));
+        reopened.close();
+    }
+
+    @Test
+    void candleContinuesAcrossRestart() throws IOException {
+        TickStore store = open();
+        store.append(SYMBOL, MIDNIGHT + 1000, 100);
+        store.append(SYMBOL, MIDNIGHT + 2000, 300);
+        store.close();
+
+        TickStore reopened = open();
+        reopened.append(SYMBOL, MIDNIGHT + 3000, 50);
+        reopened.append(SYMBOL, MIDNIGHT + 4000, 200);
+        List<String> found = new ArrayList<>();
+        assertTrue(reopened.candle(SYMBOL, TickStore.Resolution.MINUTE, MIDNIGHT + 30_000,
+                (start, open, high, low, close, ticks) -> found.add(candle(start, open, high, low, close, ticks))));
+        assertEquals(List.of(candle(MIDNIGHT, 100, 300, 50, 200, 4)), found);
+        assertFalse(reopened.candle(SYMBOL, TickStore.Resolution.MINUTE, MIDNIGHT + 60_000,
+                (start, open, high, low, close, ticks) -> fail("vela sin ticks")));
+        reopened.close();
+    }
+
+    private TickStore open() {
+        return new TickStore(directory, CAPACITY, 16);
+    }
+
+    private static List<String> scan(TickStore store, long from, long to) throws IOException {
+        List<String> ticks = new ArrayList<>();
+        store.scan(SYMBOL, from, to, (timestamp, price) -> ticks.add(tick(timestamp, price)));
+        return ticks;
+    }
+
+    private static List<String> candles(TickStore store, TickStore.Resolution resolution, long from, long to)
+            throws IOException {
+        List<String> candles = new ArrayList<>();
+        store.candles(SYMBOL, resolution, from, to,
+                (start, open, high, low, close, ticks) -> candles.add(candle(start, open, high, low, close, ticks)));
+        return candles;
+    }
+
+    private static String tick(long timestamp, long price) {
+        return timestamp + "=" + price;
+    }
+
+    private static String candle(long start, long open, long high, long low, long close, long ticks) {
+        return start + ":" + open + "/" + high + "/" + low + "/" + close + "x" + ticks;
+    }
+}
@@ -0,0 +1,138 @@
+package com.redes.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxTest {
+    // Tópico de 9 bytes y contenido de 11: 31 bytes por registro, 3 por segmento de 100
+    private static final String TOPIC = "p/BTCUSDT";
+    private static final int RECORD = 31;
+    private static final int SEGMENT_SIZE = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void committedPositionSurvivesReopen() throws IOException {
+        Outbox outbox = open(4);
+        append(outbox, 0, 3);
+        Outbox.Batch batch = outbox.read(2);
+        assertEquals(List.of("precio-0000", "precio-0001"), payloads(batch));
+        outbox.commit(batch);
+        outbox.close();
+        assertTrue(Files.exists(directory.resolve("outbox.pos")));
+
+        Outbox reopened = open(4);
+        assertEquals(1, reopened.getPendingCount());
+        assertEquals(List.of("precio-0002"), payloads(reopened.read(10)));
+    }
+
+    @Test
+    void corruptedTailIsDiscarded() throws IOException {
+        Outbox outbox = open(4);
+        append(outbox, 0, 3);
+        outbox.close();
+
+        // Un byte cambiado en el contenido del tercer registro: el CRC ya no cuadra
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 'X' }), 2 * RECORD + RECORD - 1);
+        }
+
+        Outbox reopened = open(4);
+        assertEquals(2, reopened.getPendingCount());
+        append(reopened, 3, 1);
+        assertEquals(List.of("precio-0000", "precio-0001", "precio-0003"), payloads(reopened.read(10)));
+    }
+
+    @Test
+    void truncatedTailIsDiscarded() throws IOException {
+        Outbox outbox = open(4);
+        append(outbox, 0, 3);
+        outbox.close();
+
+        // Caída a mitad del tercer registro
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            channel.truncate(2 * RECORD + RECORD / 2);
+        }
+
+        Outbox reopened = open(4);
+        assertEquals(2, reopened.getPendingCount());
+        assertEquals(List.of("precio-0000", "precio-0001"), payloads(reopened.read(10)));
+    }
+
+    @Test
+    void overflowDropsOldestSegment() throws IOException {
+        Outbox outbox = open(2);
+        append(outbox, 0, 7);
+
+        // Tres segmentos con sitio para dos: se pierde el primero
+        assertEquals(4, outbox.getPendingCount());
+        assertFalse(Files.exists(segment(0)));
+        assertEquals(List.of("precio-0003", "precio-0004", "precio-0005", "precio-0006"),
+                payloads(outbox.read(10)));
+
+        Outbox reopened = open(2);
+        assertEquals(4, reopened.getPendingCount());
+    }
+
+    @Test
+    void commitOfBatchOverlappingDroppedSegment() throws IOException {
+        Outbox outbox = open(2);
+        append(outbox, 0, 6);
+        Outbox.Batch batch = outbox.read(10);
+
+        // Mientras se envía el lote el outbox se llena y descarta el segmento 0
+        append(outbox, 6, 1);
+        outbox.commit(batch);
+
+        assertEquals(1, outbox.getPendingCount());
+        assertFalse(outbox.isEmpty());
+        assertEquals(List.of("precio-0006"), payloads(outbox.read(10)));
+    }
+
+    @Test
+    void commitOfBatchBehindDroppedSegmentIsIgnored() throws IOException {
+        Outbox outbox = open(2);
+        append(outbox, 0, 3);
+        Outbox.Batch batch = outbox.read(2);
+
+        append(outbox, 3, 4);
+        outbox.commit(batch);
+
+        // La posición no vuelve al segmento borrado
+        assertEquals(4, outbox.getPendingCount());
+        assertEquals(List.of("precio-0003", "precio-0004", "precio-0005", "precio-0006"),
+                payloads(outbox.read(10)));
+        outbox.close();
+        assertEquals(4, open(2).getPendingCount());
+    }
+
+    private Outbox open(int maxSegments) throws IOException {
+        return new Outbox(directory, SEGMENT_SIZE, maxSegments);
+    }
+
+    private static void append(Outbox outbox, int first, int count) throws IOException {
+        for (int i = first; i < first + count; i++) {
+            outbox.append(TOPIC, String.format("precio-%04d", i).getBytes(UTF_8), true);
+        }
+    }
+
+    private static List<String> payloads(Outbox.Batch batch) {
+        return batch.getEntries().stream().map(entry -> new String(entry.getPayload(), UTF_8)).toList();
+    }
+
+    private Path segment(long number) {
+        return directory.resolve(String.format("outbox-%016d.log", number));
+    }
+}
@@ -0,0 +1,130 @@
+package com.redes.source;
+
+import com.redes.InvalidSymbolException;
+import com.redes.codec.FixedPoint;
+import com.redes.demand.SymbolDemand;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinancePriceSourceTest {
+    private static final String INVALID = "BTCUSTD";
+
+    private HttpServer server;
+    private final List<String> queries = new ArrayList<>();
+    private BinancePriceSource source;
+
+    // Responde como Binance: 400 si la petición lleva un símbolo que no existe
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/ticker/price", exchange -> {
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            synchronized (queries) {
+                queries.add(query);
+            }
+            if (query.contains(INVALID)) {
+                exchange.sendResponseHeaders(400, -1);
+                exchange.close();
+                return;
+            }
+            StringBuilder body = new StringBuilder("[");
+            for (String symbol : query.substring("symbols=".length()).replaceAll("[\\[\\]\"]", "").split(",")) {
+                if (body.length() > 1) {
+                    body.append(',');
+                }
+                body.append("{\"symbol\":\"").append(symbol).append("\",\"price\":\"").append(symbol.length()).append(".5\"}");
+            }
+            byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        source = new BinancePriceSource("http://127.0.0.1:" + server.getAddress().getPort(),
+                Duration.ofSeconds(2), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void unknownSymbolDoesNotLoseTheRestOfTheBatch() throws Exception {
+        SymbolTable table = new SymbolTable(List.of("BTCUSDT", "ETHUSDT", INVALID, "SOLUSDT", "ADAUSDT"));
+        PriceBook book = new PriceBook(table.size());
+
+        assertEquals(4, source.fetchInto(table, book));
+        for (String symbol : List.of("BTCUSDT", "ETHUSDT", "SOLUSDT", "ADAUSDT")) {
+            int id = table.indexOf(symbol);
+            assertTrue(book.has(id), symbol);
+            assertEquals(FixedPoint.fromDouble(7.5), book.price(id));
+        }
+        assertFalse(book.has(table.indexOf(INVALID)));
+        assertTrue(source.isInvalidSymbol(INVALID));
+
+        // El siguiente tick ya no lo pide: una sola petición con los cuatro válidos
+        int before = queries.size();
+        assertEquals(4, source.fetchInto(table, book));
+        assertEquals(before + 1, queries.size());
+        assertFalse(queries.get(queries.size() - 1).contains(INVALID));
+    }
+
+    @Test
+    void singleUnknownSymbolIsReported() {
+        assertThrows(InvalidSymbolException.class, () -> source.getPrice(INVALID));
+        assertTrue(source.isInvalidSymbol(INVALID));
+    }
+
+    @Test
+    void singleSymbolRequestIsReused() throws Exception {
+        assertEquals(7.5, source.getPrice("btcusdt"));
+        assertEquals(7.5, source.getPrice("BTCUSDT"));
+        assertEquals(List.of("symbols=[\"BTCUSDT\"]", "symbols=[\"BTCUSDT\"]"), queries);
+    }
+
+    @Test
+    void unknownSymbolInDemandIsDropped() throws Exception {
+        AtomicReference<Set<String>> fetched = new AtomicReference<>();
+        SymbolDemand demand = new SymbolDemand(List.of(), 60_000, fetched::set);
+        demand.setValidator(symbol -> !source.isInvalidSymbol(symbol));
+        source.setInvalidSymbolListener(demand::reject);
+        try {
+            demand.onConfiguration("monitor01",
+                    Map.of("BTCUSDT", List.of(1L), INVALID, List.of(1L), "ETHUSDT", List.of(1L)));
+            SymbolTable table = new SymbolTable(fetched.get());
+            assertEquals(2, source.fetchInto(table, new PriceBook(table.size())));
+
+            // La demanda lo retira en su hilo
+            long deadline = System.currentTimeMillis() + 5000;
+            while (fetched.get().contains(INVALID) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(Set.of("BTCUSDT", "ETHUSDT"), fetched.get());
+
+            // Otro monitor con la misma errata ya no lo vuelve a añadir
+            demand.onConfiguration("monitor02", Map.of(INVALID, List.of(1L)));
+            assertEquals(Set.of("BTCUSDT", "ETHUSDT"), demand.getActiveSymbols());
+        } finally {
+            demand.stop();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.redes.source;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceCacheTest {
+    private static final long MAX_AGE = 200;
+
+    private HttpServer server;
+    // Cada petición devuelve un precio distinto: 1.0, 2.0, 3.0...
+    private final AtomicInteger requests = new AtomicInteger();
+    private BinancePriceSource source;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v3/ticker/price", exchange -> {
+            byte[] body = ("[{\"symbol\":\"BTCUSDT\",\"price\":\"" + requests.incrementAndGet() + ".0\"}]")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        source = new BinancePriceSource("http://127.0.0.1:" + server.getAddress().getPort(),
+                Duration.ofSeconds(2), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void freshPriceIsServedFromTheCache() throws Exception {
+        PriceCache cache = new PriceCache(source, 60_000, 0, 16);
+        assertEquals(1.0, cache.getPrice("BTCUSDT"));
+        assertEquals(1.0, cache.getPrice("btcusdt"));
+        assertEquals(1.0, cache.getFreshPrice("BTCUSDT"));
+        assertEquals(1, requests.get());
+        assertTrue(cache.getStats().startsWith("aciertos=2, aciertos caducados=0, fallos=1"), cache.getStats());
+    }
+
+    @Test
+    void stalePriceIsServedWhileRefreshing() throws Exception {
+        PriceCache cache = new PriceCache(source, MAX_AGE, 60_000, 16);
+        assertEquals(1.0, cache.getPrice("BTCUSDT"));
+        Thread.sleep(MAX_AGE + 50);
+
+        // Devuelve el viejo al momento y lo refresca en segundo plano
+        assertEquals(1.0, cache.getPrice("BTCUSDT"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requests.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, requests.get());
+        assertTrue(cache.getStats().contains("aciertos caducados=1"), cache.getStats());
+    }
+
+    @Test
+    void freshPriceDoesNotServeStale() throws Exception {
+        PriceCache cache = new PriceCache(source, MAX_AGE, 60_000, 16);
+        assertEquals(1.0, cache.getFreshPrice("BTCUSDT"));
+        Thread.sleep(MAX_AGE + 50);
+
+        // El tick espera al precio nuevo en lugar de publicar el del intervalo anterior
+        assertEquals(2.0, cache.getFreshPrice("BTCUSDT"));
+        assertTrue(cache.getStats().contains("aciertos caducados=0, fallos=2"), cache.getStats());
+    }
+
+    @Test
+    void expiredPriceIsFetchedAgain() throws Exception {
+        PriceCache cache = new PriceCache(source, MAX_AGE, 0, 16);
+        assertEquals(1.0, cache.getPrice("BTCUSDT"));
+        Thread.sleep(MAX_AGE + 50);
+        assertEquals(2.0, cache.getPrice("BTCUSDT"));
+        assertEquals(2, requests.get());
+    }
+}